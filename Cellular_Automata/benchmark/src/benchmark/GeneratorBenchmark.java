@@ -0,0 +1,190 @@
+package benchmark;
+
+import generator.IGenerator;
+import generator.epidemic.Epidemic;
+import generator.gol.GameOfLife;
+import generator.whowins.WhoWins;
+import generator.wolfram.WolframCA;
+import java.awt.image.BufferedImage;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import services.BufferedImageSaveService;
+
+/**
+ * Throughput of the hot paths of the generators: initialize (start
+ * configuration and image), generate (step and image), step only and render
+ * only, for every combination of the parameters below.
+ *
+ * Besides the operations per second every benchmark counts the cells it
+ * processed, which JMH reports as cells/s. A step of Wolfram's automaton and
+ * of WhoWins calculates one line, the others the whole grid. Run with the GC
+ * profiler (-prof gc, the default of the ant target) for the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+    /**
+     * Key of the generator, as for the batch runner
+     */
+    @Param({"gol", "wolfram", "whowins", "epidemic"})
+    public String generator;
+
+    /**
+     * Width and height of the board in pixels
+     */
+    @Param({"256", "1024", "4096"})
+    public int board;
+
+    /**
+     * Size of the quadrat of a cell in pixels
+     */
+    @Param({"1", "4", "16"})
+    public int quadrat;
+
+    /**
+     * Ratio of living (Game of Life) or occupied (Epidemic) cells at the
+     * start, the elementary automata start with half of the cells set
+     */
+    @Param({"0.1", "0.5"})
+    public double density;
+
+    private IGenerator instance;
+    private long gridCells; // cells of the grid
+    private long stepCells; // cells calculated by a step
+
+    /**
+     * Cells processed by a benchmark, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cells {
+
+        /**
+         * Processed cells
+         */
+        public long cells;
+
+        /**
+         * Starts counting again for every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            cells = 0;
+        }
+    }
+
+    /**
+     * Creates and configures the generator.
+     */
+    @Setup(Level.Trial)
+    public void createGenerator() {
+        BufferedImageSaveService saveService = new BufferedImageSaveService();
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(board));
+        parameters.setProperty("height", String.valueOf(board));
+        parameters.setProperty("quadrat", String.valueOf(quadrat));
+        parameters.setProperty("seed", "42");
+        // Runs that never finish and never skip, so every step does the same work
+        parameters.setProperty("generations", String.valueOf(Integer.MAX_VALUE));
+        parameters.setProperty("cycles", "run");
+        int cells = board / quadrat;
+        switch (generator) {
+            case "gol":
+                instance = new GameOfLife(saveService, generator);
+                parameters.setProperty("alive", String.valueOf(density));
+                stepCells = (long) cells * cells;
+                break;
+            case "wolfram":
+                instance = new WolframCA(saveService, generator);
+                parameters.setProperty("start", "RANDOM");
+                stepCells = cells;
+                break;
+            case "whowins":
+                instance = new WhoWins(saveService, generator);
+                parameters.setProperty("start", "RANDOM");
+                stepCells = cells;
+                break;
+            case "epidemic":
+                instance = new Epidemic(saveService, generator);
+                parameters.setProperty("empty", String.valueOf(1.0 - density));
+                stepCells = (long) cells * cells;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown generator: " + generator);
+        }
+        instance.configure(parameters);
+        gridCells = (long) cells * cells;
+    }
+
+    /**
+     * Every iteration starts with a new start configuration, so the grid
+     * does not die out over the iterations.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        instance.reset();
+    }
+
+    /**
+     *
+     * @param counter Counts the cells
+     * @return The image of the start configuration
+     */
+    @Benchmark
+    public BufferedImage initialize(Cells counter) {
+        counter.cells += gridCells;
+        return instance.initialize();
+    }
+
+    /**
+     *
+     * @param counter Counts the cells
+     * @return The image of the next generation
+     */
+    @Benchmark
+    public BufferedImage generate(Cells counter) {
+        counter.cells += stepCells;
+        return instance.generate();
+    }
+
+    /**
+     *
+     * @param counter Counts the cells
+     * @return The number of the generation, so that the step is not removed
+     */
+    @Benchmark
+    public int step(Cells counter) {
+        counter.cells += stepCells;
+        instance.step();
+        return instance.getCurrentGeneration();
+    }
+
+    /**
+     *
+     * @param counter Counts the cells
+     * @return The image of the current generation
+     */
+    @Benchmark
+    public BufferedImage render(Cells counter) {
+        counter.cells += gridCells;
+        return instance.render();
+    }
+}
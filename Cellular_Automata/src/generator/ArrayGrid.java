@@ -0,0 +1,72 @@
+package generator;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of the IGrid Interface with an int array per row on the Java
+ * heap.
+ */
+public class ArrayGrid implements IGrid {
+
+    private final int[][] cells;
+    private final int columns;
+
+    /**
+     * Constructor
+     *
+     * @param rows Number of rows of the grid
+     * @param columns Number of columns of the grid
+     */
+    public ArrayGrid(int rows, int columns) {
+        this.cells = new int[rows][columns];
+        this.columns = columns;
+    }
+
+    @Override
+    public int getRows() {
+        return cells.length;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public int get(int row, int column) {
+        return cells[row][column];
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        cells[row][column] = value;
+    }
+
+    @Override
+    public void fill(int value) {
+        for (int[] row : cells) {
+            Arrays.fill(row, value);
+        }
+    }
+
+    @Override
+    public void copy(IGrid source) {
+        if (source instanceof ArrayGrid) {
+            int[][] from = ((ArrayGrid) source).cells;
+            for (int r = 0; r < cells.length; r++) {
+                System.arraycopy(from[r], 0, cells[r], 0, columns);
+            }
+            return;
+        }
+        for (int r = 0; r < cells.length; r++) {
+            for (int c = 0; c < columns; c++) {
+                cells[r][c] = source.get(r, c);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        //The arrays are freed by the garbage collector
+    }
+}
@@ -0,0 +1,19 @@
+package generator;
+
+/**
+ * What a GenerationPublisher does with a new item for a subscriber whose
+ * buffer is full.
+ */
+public enum Backpressure {
+
+    /**
+     * The oldest item of the buffer is dropped, the generator never waits.
+     * For subscribers that only need the latest state, e.g. a display
+     */
+    DROP_OLDEST,
+    /**
+     * The generator waits until the subscriber has taken an item. For
+     * subscribers that need every item, e.g. a recorder
+     */
+    BLOCK
+}
@@ -0,0 +1,111 @@
+package generator;
+
+import java.util.Arrays;
+
+/**
+ * Possible boundaries of the grid of a generator.
+ *
+ * The generators read the neighbours of the cells at the edges from ghost
+ * cells, an extra row or column around the grid which is refreshed once per
+ * step. So the loops over the cells need no bounds checks, whatever the
+ * boundary is.
+ */
+public enum Boundary {
+
+    /**
+     * The cells at the edges are never updated
+     */
+    FIXED,
+    /**
+     * The grid wraps around, the left neighbour of the first column is the
+     * last column
+     */
+    TOROIDAL,
+    /**
+     * The grid is mirrored at its edges, the cells outside of the grid are
+     * copies of the cells at the edges
+     */
+    REFLECTIVE;
+
+    /**
+     *
+     * @return The first cell the generators update, the last one is the
+     * same distance from the end
+     */
+    public int first() {
+        return (this == FIXED) ? 1 : 0;
+    }
+
+    /**
+     * Maps an index, which may be outside of the grid, to the cell it reads.
+     *
+     * @param index Index of a row or column
+     * @param length Number of rows or columns of the grid
+     * @return The index of the cell, -1 for a cell outside of a fixed grid
+     */
+    public int source(int index, int length) {
+        if (index >= 0 && index < length) {
+            return index;
+        }
+        switch (this) {
+            case TOROIDAL:
+                return Math.floorMod(index, length);
+            case REFLECTIVE:
+                return (index < 0) ? 0 : length - 1;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Refreshes the ghost cells of a line, which holds the cells from index
+     * 1 to length - 2. The ghost cells of a fixed line are 0.
+     *
+     * @param line The cells with a ghost cell at each end
+     */
+    public void pad(int[] line) {
+        int length = line.length - 2;
+        int left = source(-1, length);
+        int right = source(length, length);
+        line[0] = (left < 0) ? 0 : line[left + 1];
+        line[length + 1] = (right < 0) ? 0 : line[right + 1];
+    }
+
+    /**
+     * Refreshes the ghost rows and columns of a grid, which holds the cells
+     * from row and column 1 to length - 2. The ghost cells of a fixed grid
+     * are 0.
+     *
+     * @param grid The cells with a ghost row and column at each edge
+     */
+    public void pad(int[][] grid) {
+        int rows = grid.length - 2;
+        int top = source(-1, rows);
+        int bottom = source(rows, rows);
+        if (top < 0) {
+            Arrays.fill(grid[0], 0);
+            Arrays.fill(grid[rows + 1], 0);
+        } else {
+            System.arraycopy(grid[top + 1], 0, grid[0], 0, grid[0].length);
+            System.arraycopy(grid[bottom + 1], 0, grid[rows + 1], 0, grid[0].length);
+        }
+        //The columns include the ghost rows, so the corners are set as well
+        for (int[] line : grid) {
+            pad(line);
+        }
+    }
+
+    /**
+     *
+     * @param value The name of the constant, ignoring case
+     * @return The matching boundary
+     */
+    public static Boundary parse(String value) {
+        for (Boundary boundary : values()) {
+            if (boundary.name().equalsIgnoreCase(value)) {
+                return boundary;
+            }
+        }
+        throw new IllegalArgumentException("Unknown boundary: " + value);
+    }
+}
@@ -0,0 +1,86 @@
+package generator;
+
+/**
+ * Detects still lifes and cycles of a run.
+ *
+ * Generators hash their grid Zobrist-style: the hash is the XOR of the keys
+ * of all living cells, so when a cell changes only its key has to be XORed
+ * into the hash. The detector keeps the hashes of the last generations in a
+ * ring; a generation whose hash is already in the ring repeats the one it was
+ * recorded for, and the run repeats itself from there on. Two different grids
+ * have the same hash with a probability of about 2^-64 per generation.
+ */
+public class CycleDetector {
+
+    /**
+     * Longest period found by default
+     */
+    public static final int DEFAULT_PERIODS = 64;
+
+    private final long[] hashes;
+    private final int[] generations;
+    private int count = 0; // number of hashes in the ring
+    private int last = -1; // index of the latest hash
+
+    /**
+     * Constructor
+     *
+     * @param periods Longest period that is found
+     */
+    public CycleDetector(int periods) {
+        if (periods < 1) {
+            throw new IllegalArgumentException("periods must be at least 1");
+        }
+        this.hashes = new long[periods];
+        this.generations = new int[periods];
+    }
+
+    /**
+     *
+     * @param cell Position of a cell, e.g. its row in the upper and its column
+     * in the lower 32 bits
+     * @return The key of the cell, which a living cell XORs into the hash
+     */
+    public static long key(long cell) {
+        //Finalizer of SplitMix64, every bit of the position changes half of the key bits
+        long z = cell * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Adds the hash of a generation. A generation which does not follow the
+     * last one starts a new run.
+     *
+     * @param generation The number of the generation
+     * @param hash The hash of its grid
+     * @return The period of the cycle the generation is in, 1 for a still
+     * life, or 0 if the generation has not been seen before
+     */
+    public int add(int generation, long hash) {
+        if (count > 0 && generation != generations[last] + 1) {
+            clear();
+        }
+        int period = 0;
+        for (int i = 0; i < count; i++) {
+            if (hashes[i] == hash) {
+                int candidate = generation - generations[i];
+                period = (period == 0) ? candidate : Math.min(period, candidate);
+            }
+        }
+        last = (last + 1) % hashes.length;
+        hashes[last] = hash;
+        generations[last] = generation;
+        count = Math.min(count + 1, hashes.length);
+        return period;
+    }
+
+    /**
+     * Forgets all hashes.
+     */
+    public void clear() {
+        count = 0;
+        last = -1;
+    }
+}
@@ -0,0 +1,52 @@
+package generator;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The image of a generation, as published by the frame publisher of a
+ * generator. The image is never modified after it was published.
+ */
+public final class GenerationFrame {
+
+    private final IGenerator generator;
+    private final int generation;
+    private final BufferedImage image;
+
+    /**
+     * Constructor
+     *
+     * @param generator The generator of the image
+     * @param generation The number of the generation
+     * @param image The image with a pixel per cell
+     */
+    public GenerationFrame(IGenerator generator, int generation, BufferedImage image) {
+        this.generator = generator;
+        this.generation = generation;
+        this.image = image;
+    }
+
+    /**
+     *
+     * @return The generator of the image
+     */
+    public IGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     *
+     * @return The number of the generation
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     *
+     * @return The image with a pixel per cell, see IGenerator.getQuadratSize
+     * for the size it is shown with
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+}
@@ -0,0 +1,281 @@
+package generator;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes the frames or statistics of the generations of a generator to
+ * any number of subscribers, e.g. the display, a recorder and an exporter.
+ *
+ * Every subscriber has a buffer of its own and is called on an executor of
+ * its own, only with as many items as it requested. When its buffer is full
+ * the Backpressure of the subscriber decides: DROP_OLDEST makes room for the
+ * new item, BLOCK makes the generator wait for this subscriber. So a slow
+ * subscriber only slows down the run if it asks for it.
+ *
+ * A BLOCK subscriber must not run on the thread that submits the items,
+ * e.g. on the event dispatch thread while the GUI initializes a generator.
+ *
+ * @param <T> Type of the items
+ */
+public class GenerationPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * Buffer size of subscribe without further arguments
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final Runnable onDrop;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor
+     */
+    public GenerationPublisher() {
+        this(() -> {
+        });
+    }
+
+    /**
+     * Constructor
+     *
+     * @param onDrop Called for every item dropped for a subscriber, e.g. to
+     * count the dropped frames
+     */
+    public GenerationPublisher(Runnable onDrop) {
+        this.onDrop = onDrop;
+    }
+
+    /**
+     *
+     * @return True if an item would be delivered to anybody, so the caller
+     * can skip creating it
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Subscribes with DROP_OLDEST and a buffer of DEFAULT_CAPACITY items,
+     * called on the common ForkJoinPool.
+     *
+     * @param subscriber The subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscribe(subscriber, Backpressure.DROP_OLDEST, DEFAULT_CAPACITY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     *
+     * @param subscriber The subscriber
+     * @param backpressure What happens to a new item if the buffer is full
+     * @param capacity Size of the buffer in items
+     * @param executor Calls the subscriber, one call at a time
+     */
+    public void subscribe(Flow.Subscriber<? super T> subscriber, Backpressure backpressure, int capacity,
+            Executor executor) {
+        Objects.requireNonNull(subscriber);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1");
+        }
+        Subscription subscription = new Subscription(subscriber, backpressure, capacity, executor);
+        subscriptions.add(subscription);
+        subscription.signal(); // onSubscribe
+    }
+
+    /**
+     * Hands an item to every subscriber, waiting for the BLOCK subscribers
+     * with a full buffer.
+     *
+     * @param item The item
+     */
+    public void submit(T item) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(item);
+        }
+    }
+
+    /**
+     * Stops handing new items to a subscriber. The items already buffered for
+     * it are still delivered as requested, then its onComplete is called on
+     * its executor.
+     *
+     * @param subscriber The subscriber
+     */
+    public void complete(Flow.Subscriber<? super T> subscriber) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.subscriber == subscriber) {
+                subscription.complete();
+            }
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Backpressure backpressure;
+        private final int capacity;
+        private final Executor executor;
+        // Guarded by this, producers wait on this for room in the buffer
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private long demand = 0;
+        private boolean cancelled = false;
+        private boolean completing = false; // takes no more items, onComplete follows the buffered ones
+        private Throwable error; // of an invalid request
+        // Only touched by run, which never runs twice at the same time
+        private boolean subscribed = false;
+        private final AtomicInteger signals = new AtomicInteger(); // not yet handled by run
+
+        Subscription(Flow.Subscriber<? super T> subscriber, Backpressure backpressure, int capacity,
+                Executor executor) {
+            this.subscriber = subscriber;
+            this.backpressure = backpressure;
+            this.capacity = capacity;
+            this.executor = executor;
+        }
+
+        void offer(T item) {
+            boolean dropped = false;
+            synchronized (this) {
+                while (!cancelled && !completing && buffer.size() >= capacity) {
+                    if (backpressure == Backpressure.DROP_OLDEST) {
+                        buffer.poll();
+                        dropped = true;
+                        break;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (cancelled || completing) {
+                    return;
+                }
+                buffer.add(item);
+            }
+            if (dropped) {
+                onDrop.run();
+            }
+            signal();
+        }
+
+        // Makes sure run is called once more
+        void signal() {
+            if (signals.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    Logger.getLogger(GenerationPublisher.class.getName()).log(Level.WARNING,
+                            "Subscriber cancelled, its executor is shut down", ex);
+                    cancel();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    try {
+                        subscriber.onSubscribe(this);
+                    } catch (RuntimeException ex) {
+                        fail(ex);
+                    }
+                }
+                while (true) {
+                    T item = null;
+                    Throwable failure;
+                    boolean complete = false;
+                    synchronized (this) {
+                        if (cancelled) {
+                            break;
+                        }
+                        failure = error;
+                        if (failure != null) {
+                            cancel();
+                        } else if (completing && buffer.isEmpty()) {
+                            cancelled = true;
+                            complete = true;
+                        } else if (demand == 0 || buffer.isEmpty()) {
+                            break;
+                        } else {
+                            item = buffer.poll();
+                            if (demand != Long.MAX_VALUE) {
+                                demand--;
+                            }
+                            notifyAll();
+                        }
+                    }
+                    if (failure != null) {
+                        subscriber.onError(failure);
+                        break;
+                    }
+                    if (complete) {
+                        try {
+                            subscriber.onComplete();
+                        } catch (RuntimeException ex) {
+                            fail(ex);
+                        }
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(item);
+                    } catch (RuntimeException ex) {
+                        fail(ex);
+                    }
+                }
+                missed = signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void fail(RuntimeException ex) {
+            Logger.getLogger(GenerationPublisher.class.getName()).log(Level.SEVERE,
+                    "Subscriber cancelled after an exception", ex);
+            cancel();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("A subscriber must request a positive number of items: " + n);
+                } else {
+                    demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            signal();
+        }
+
+        void complete() {
+            synchronized (this) {
+                completing = true;
+                notifyAll();
+            }
+            subscriptions.remove(this);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                buffer.clear();
+                notifyAll();
+            }
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package generator;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The statistics of a generation, as published by the statistics publisher
+ * of a generator.
+ */
+public final class GenerationStatistics {
+
+    private final IGenerator generator;
+    private final int generation;
+    private final Map<String, Long> statistics;
+
+    /**
+     * Constructor
+     *
+     * @param generator The generator
+     * @param generation The number of the generation
+     * @param statistics The cells per state, see IGenerator.getStatistics
+     */
+    public GenerationStatistics(IGenerator generator, int generation, Map<String, Long> statistics) {
+        this.generator = generator;
+        this.generation = generation;
+        this.statistics = Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     *
+     * @return The generator
+     */
+    public IGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     *
+     * @return The number of the generation
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     *
+     * @return The cells per state
+     */
+    public Map<String, Long> getStatistics() {
+        return statistics;
+    }
+}
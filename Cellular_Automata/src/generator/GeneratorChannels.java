@@ -0,0 +1,109 @@
+package generator;
+
+import generator.IGenerator.GeneratorStatusType;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Everything a generator reports to the outside: its status, its runtime
+ * metrics and the frames and statistics of its generations. Every generator
+ * owns one and delegates the matching methods of IGenerator to it, so the
+ * generators only implement the calculation of their automaton.
+ */
+public class GeneratorChannels {
+
+    private final IGenerator generator;
+    private final StatusChannel statusChannel;
+    private final GeneratorMetrics metrics = new GeneratorMetrics();
+    private final GenerationPublisher<GenerationFrame> framePublisher = new GenerationPublisher<>(metrics::recordFrameDrop);
+    private final GenerationPublisher<GenerationStatistics> statisticsPublisher = new GenerationPublisher<>();
+
+    /**
+     * Constructor
+     *
+     * @param generator The generator that reports through these channels
+     */
+    public GeneratorChannels(IGenerator generator) {
+        this.generator = generator;
+        this.statusChannel = new StatusChannel(generator, GeneratorStatusType.UNCONFIGURED);
+    }
+
+    /**
+     * Sets the status and notifies the listeners on their executors.
+     *
+     * @param status The new status of the generator
+     */
+    public void updateStatus(GeneratorStatusType status) {
+        long start = System.nanoTime();
+        statusChannel.publish(status);
+        metrics.recordPublish(System.nanoTime() - start);
+    }
+
+    /**
+     *
+     * @return The latest status of the generator
+     */
+    public GeneratorStatusType getStatus() {
+        return statusChannel.get();
+    }
+
+    /**
+     * Hands a generation to the subscribers of the frames and, only if
+     * anybody subscribed, of the statistics.
+     *
+     * @param generation The number of the generation
+     * @param image The rendered image of the generation
+     * @param statistics Counts the cells per state of the generation
+     * @return The image
+     */
+    public BufferedImage publish(int generation, BufferedImage image, Supplier<Map<String, Long>> statistics) {
+        framePublisher.submit(new GenerationFrame(generator, generation, image));
+        if (statisticsPublisher.hasSubscribers()) {
+            statisticsPublisher.submit(new GenerationStatistics(generator, generation, statistics.get()));
+        }
+        return image;
+    }
+
+    /**
+     *
+     * @return The runtime metrics of the generator
+     */
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     *
+     * @return The publisher of the frames
+     */
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return framePublisher;
+    }
+
+    /**
+     *
+     * @return The publisher of the statistics
+     */
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return statisticsPublisher;
+    }
+
+    /**
+     *
+     * @param listener Called with the status changes
+     * @param executor Runs the calls of the listener
+     */
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        statusChannel.subscribe(listener, executor);
+    }
+
+    /**
+     *
+     * @param listener The listener to remove
+     */
+    public void removeStatusListener(IStatusListener listener) {
+        statusChannel.unsubscribe(listener);
+    }
+}
@@ -0,0 +1,51 @@
+package generator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+
+/**
+ * Base of the Flight Recorder events of a generator, which tell the
+ * generator, the generation and the size of the grid of a phase. A phase
+ * calls begin at its start and commit with its details at its end. While no
+ * recording is running the event costs next to nothing, the details are only
+ * set if it is recorded.
+ */
+@Category({"Cellular Automata", "Generator"})
+public abstract class GeneratorEvent extends jdk.jfr.Event {
+
+    // Not private, the Flight Recorder leaves out private fields of a superclass
+    @Label("Generator")
+    String generator;
+
+    @Label("Generation")
+    int generation;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    /**
+     * Ends the event and commits it, if it is recorded.
+     *
+     * @param generator The name of the generator
+     * @param generation The number of the generation
+     * @param rows Rows of the grid
+     * @param columns Columns of the grid
+     */
+    public void commit(String generator, int generation, int rows, int columns) {
+        end();
+        if (shouldCommit()) {
+            set(generator, generation, rows, columns);
+            commit();
+        }
+    }
+
+    void set(String generator, int generation, int rows, int columns) {
+        this.generator = generator;
+        this.generation = generation;
+        this.rows = rows;
+        this.columns = columns;
+    }
+}
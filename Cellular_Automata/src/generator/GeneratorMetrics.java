@@ -0,0 +1,203 @@
+package generator;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Runtime metrics of a generator: a Histogram of the durations of every
+ * phase of a run (step, render, publish, save), the number of calculated
+ * generations and cells and the number of dropped frames.
+ *
+ * The generators record their own phases, callers only record what happens
+ * outside of a generator, e.g. a frame that was dropped by the display.
+ * Recording does not lock or allocate. The metrics are exposed as an MXBean,
+ * see register, and can be watched with JConsole or any other JMX client.
+ */
+public class GeneratorMetrics implements GeneratorMetricsMXBean {
+
+    /**
+     * Domain of the names of the MXBeans
+     */
+    public static final String DOMAIN = "CellularAutomata";
+
+    private static final double MILLIS = 1e6; // nanoseconds per millisecond
+
+    private final Histogram step = new Histogram();
+    private final Histogram render = new Histogram();
+    private final Histogram publish = new Histogram();
+    private final Histogram save = new Histogram();
+    private final LongAdder generations = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder frameDrops = new LongAdder();
+    private volatile long population = -1;
+    // The current run, see startRun
+    private volatile long runStart = System.nanoTime();
+    private volatile long runEnd = runStart; // end of the latest step
+    private final LongAdder runGenerations = new LongAdder();
+    private final LongAdder runCells = new LongAdder();
+
+    /**
+     * Starts a new run for the rates, called by reset.
+     */
+    public void startRun() {
+        runGenerations.reset();
+        runCells.reset();
+        runStart = System.nanoTime();
+        runEnd = runStart;
+    }
+
+    /**
+     *
+     * @param nanos Duration of a step
+     * @param stepCells Number of cells the step calculated
+     */
+    public void recordStep(long nanos, long stepCells) {
+        step.record(nanos);
+        generations.increment();
+        cells.add(stepCells);
+        runGenerations.increment();
+        runCells.add(stepCells);
+        runEnd = System.nanoTime();
+    }
+
+    /**
+     *
+     * @param nanos Duration of rendering an image
+     */
+    public void recordRender(long nanos) {
+        render.record(nanos);
+    }
+
+    /**
+     *
+     * @param nanos Duration of publishing a status to the listeners
+     */
+    public void recordPublish(long nanos) {
+        publish.record(nanos);
+    }
+
+    /**
+     *
+     * @param nanos Duration of encoding and writing an image
+     */
+    public void recordSave(long nanos) {
+        save.record(nanos);
+    }
+
+    /**
+     *
+     * @param population Living cells of the current generation
+     */
+    public void recordPopulation(long population) {
+        this.population = population;
+    }
+
+    /**
+     * Counts an image that was replaced before it was shown.
+     */
+    public void recordFrameDrop() {
+        frameDrops.increment();
+    }
+
+    @Override
+    public long getGenerations() {
+        return generations.sum();
+    }
+
+    @Override
+    public long getCells() {
+        return cells.sum();
+    }
+
+    @Override
+    public double getGenerationsPerSecond() {
+        return rate(runGenerations.sum());
+    }
+
+    @Override
+    public double getCellsPerSecond() {
+        return rate(runCells.sum());
+    }
+
+    private double rate(long count) {
+        long nanos = runEnd - runStart;
+        return (nanos <= 0) ? 0.0 : count * 1e9 / nanos;
+    }
+
+    @Override
+    public long getPopulation() {
+        return population;
+    }
+
+    @Override
+    public long getFrameDrops() {
+        return frameDrops.sum();
+    }
+
+    @Override
+    public PhaseStatistics getStep() {
+        return statistics(step);
+    }
+
+    @Override
+    public PhaseStatistics getRender() {
+        return statistics(render);
+    }
+
+    @Override
+    public PhaseStatistics getPublish() {
+        return statistics(publish);
+    }
+
+    @Override
+    public PhaseStatistics getSave() {
+        return statistics(save);
+    }
+
+    private static PhaseStatistics statistics(Histogram histogram) {
+        return new PhaseStatistics(histogram.getCount(), histogram.getMean() / MILLIS,
+                histogram.getQuantile(0.5) / MILLIS, histogram.getQuantile(0.99) / MILLIS,
+                histogram.getMax() / MILLIS);
+    }
+
+    @Override
+    public void clear() {
+        step.clear();
+        render.clear();
+        publish.clear();
+        save.clear();
+        generations.reset();
+        cells.reset();
+        frameDrops.reset();
+        startRun();
+    }
+
+    /**
+     * Registers the metrics of a generator with the platform MBean server as
+     * CellularAutomata:type=Generator,name="the name of the generator". The
+     * metrics of an earlier generator with the same name are replaced.
+     *
+     * @param generator The generator
+     * @return The name of the MXBean, null if it could not be registered
+     */
+    public static ObjectName register(IGenerator generator) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":type=Generator,name=" + ObjectName.quote(generator.getName()));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(generator.getMetrics(), name);
+            return name;
+        } catch (JMException ex) {
+            Logger.getLogger(GeneratorMetrics.class.getName()).log(Level.WARNING,
+                    "Could not register the metrics of " + generator.getName(), ex);
+            return null;
+        }
+    }
+}
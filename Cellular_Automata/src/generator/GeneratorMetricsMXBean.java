@@ -0,0 +1,78 @@
+package generator;
+
+/**
+ * Management interface of GeneratorMetrics, as registered with the platform
+ * MBean server.
+ */
+public interface GeneratorMetricsMXBean {
+
+    /**
+     *
+     * @return Number of steps calculated since the metrics were cleared
+     */
+    public long getGenerations();
+
+    /**
+     *
+     * @return Number of cells calculated since the metrics were cleared
+     */
+    public long getCells();
+
+    /**
+     *
+     * @return Steps per second of the current run, from its start to its
+     * latest step
+     */
+    public double getGenerationsPerSecond();
+
+    /**
+     *
+     * @return Cells per second of the current run, from its start to its
+     * latest step
+     */
+    public double getCellsPerSecond();
+
+    /**
+     *
+     * @return Living cells of the current generation (sick ones of an
+     * epidemic, set ones of the current line of an elementary automaton), -1
+     * if the generator does not count them
+     */
+    public long getPopulation();
+
+    /**
+     *
+     * @return Number of images that were replaced before they were shown
+     */
+    public long getFrameDrops();
+
+    /**
+     *
+     * @return Durations of the steps
+     */
+    public PhaseStatistics getStep();
+
+    /**
+     *
+     * @return Durations of rendering an image
+     */
+    public PhaseStatistics getRender();
+
+    /**
+     *
+     * @return Durations of publishing a new status to the listeners
+     */
+    public PhaseStatistics getPublish();
+
+    /**
+     *
+     * @return Durations of encoding and writing an image, without the time
+     * it waited for a background thread
+     */
+    public PhaseStatistics getSave();
+
+    /**
+     * Forgets all measurements.
+     */
+    public void clear();
+}
@@ -0,0 +1,44 @@
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Possible storages for the grid of a generator.
+ */
+public enum GridStorage {
+
+    /**
+     * Arrays on the Java heap
+     */
+    HEAP,
+    /**
+     * Tiles in direct buffers outside of the Java heap
+     */
+    DIRECT,
+    /**
+     * Tiles in a memory mapped temporary file
+     */
+    MAPPED;
+
+    /**
+     * Creates an empty grid in this storage.
+     *
+     * @param rows Number of rows of the grid
+     * @param columns Number of columns of the grid
+     * @param maxValue The largest value a cell has to hold
+     * @param directory Directory for a mapped file, null for the default temporary directory
+     * @return The grid, all cells are 0
+     * @throws IOException If the file of a mapped grid can not be created
+     */
+    public IGrid create(int rows, int columns, int maxValue, File directory) throws IOException {
+        switch (this) {
+            case DIRECT:
+                return TiledGrid.allocateDirect(rows, columns, maxValue);
+            case MAPPED:
+                return TiledGrid.map(directory, rows, columns, maxValue);
+            default:
+                return new ArrayGrid(rows, columns);
+        }
+    }
+}
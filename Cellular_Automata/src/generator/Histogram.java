@@ -0,0 +1,121 @@
+package generator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with log-linear buckets: the values
+ * below 16 have a bucket each, every power of two above is split into 8
+ * buckets, so a quantile is off by at most 12.5%. Recording a value takes an
+ * increment of its bucket and of two LongAdders, without locks or
+ * allocation, so it can be called from any thread while the histogram is
+ * read.
+ */
+class Histogram {
+
+    private static final int SUB_BITS = 3; // 2^SUB_BITS buckets per power of two
+    private static final int LINEAR = 2 << SUB_BITS; // values with a bucket each
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * (1 << SUB_BITS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     *
+     * @param nanos A duration in nanoseconds
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    private static int bucket(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // at least SUB_BITS + 1
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return LINEAR + (exponent - SUB_BITS - 1) * (1 << SUB_BITS) + sub;
+    }
+
+    // The smallest value of a bucket
+    private static long lowest(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / (1 << SUB_BITS) + SUB_BITS + 1;
+        int sub = (bucket - LINEAR) % (1 << SUB_BITS);
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+    }
+
+    /**
+     *
+     * @return Number of recorded values
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     *
+     * @return Mean of the recorded values, 0 if there are none
+     */
+    double getMean() {
+        long n = count.sum();
+        return (n == 0) ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     *
+     * @return Largest recorded value
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     *
+     * @param quantile From 0 to 1, e.g. 0.99
+     * @return The middle of the bucket holding the quantile, 0 if there are
+     * no values
+     */
+    double getQuantile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long high = (i + 1 < BUCKETS) ? lowest(i + 1) : Long.MAX_VALUE;
+                return Math.min(lowest(i) + (high - lowest(i) - 1) / 2.0, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets all values.
+     */
+    void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,348 @@
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the generations of a run so that any of them can be shown again
+ * without running the generator once more.
+ *
+ * Every cell is stored as an int value chosen by the generator, e.g. 0 and 1
+ * for a Game of Life. Every keyframeInterval generations a keyframe with all
+ * cells is stored, run length encoded. The generations in between only store
+ * the cells that changed since the generation before as pairs of index gap and
+ * new value. All numbers are written as variable length integers, so a
+ * generation in which few cells change takes a few bytes. Seeking decodes the
+ * nearest keyframe and applies at most keyframeInterval - 1 change lists.
+ *
+ * The encoded generations are kept in memory up to the memory budget, the
+ * oldest ones are moved to a temporary file when the budget is exceeded and
+ * are read back through a memory mapping.
+ */
+public class History {
+
+    private final int keyframeInterval;
+    private final long memoryBudget;
+
+    private int rows;
+    private int columns;
+    private int firstGeneration;
+    private int period; // of the cycle repeated after the recorded generations
+    private int repeatedTo = -1; // last generation of the repeated cycle, -1 for none
+    private int[] last; // cells of the last recorded generation
+    private final List<Entry> entries = new ArrayList<>();
+    private final Encoder encoder = new Encoder();
+    private long memory = 0; // bytes of the entries held in memory
+    private int spilled = 0; // number of entries moved to the file, the oldest ones
+    private File spillFile;
+    private RandomAccessFile spill;
+
+    /**
+     * Constructor
+     *
+     * @param keyframeInterval Number of generations from one keyframe to the next
+     * @param memoryBudget Bytes of encoded generations kept in memory
+     */
+    public History(int keyframeInterval, long memoryBudget) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("The keyframe interval must be at least 1");
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Records a generation. A generation that does not follow the last one
+     * recorded, e.g. the first generation of a new run, starts a new history.
+     *
+     * @param generation The number of the generation
+     * @param rows Number of rows of the grid
+     * @param columns Number of columns of the grid
+     * @param cell Returns the value of the cell at (row, column)
+     */
+    public synchronized void record(int generation, int rows, int columns, IntBinaryOperator cell) {
+        if (last == null || rows != this.rows || columns != this.columns
+                || generation != getLastGeneration() + 1 || repeatedTo >= 0) {
+            clear();
+            this.rows = rows;
+            this.columns = columns;
+            this.firstGeneration = generation;
+            if (last == null || last.length != rows * columns) {
+                last = new int[rows * columns];
+            }
+        }
+
+        encoder.reset();
+        boolean keyframe = (generation - firstGeneration) % keyframeInterval == 0;
+        int index = 0;
+        if (keyframe) {
+            int run = 0;
+            int value = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++, index++) {
+                    int v = cell.applyAsInt(r, c);
+                    last[index] = v;
+                    if (run > 0 && v != value) {
+                        encoder.write(value);
+                        encoder.write(run);
+                        run = 0;
+                    }
+                    value = v;
+                    run++;
+                }
+            }
+            if (run > 0) {
+                encoder.write(value);
+                encoder.write(run);
+            }
+        } else {
+            int previous = -1;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++, index++) {
+                    int v = cell.applyAsInt(r, c);
+                    if (v != last[index]) {
+                        last[index] = v;
+                        encoder.write(index - previous - 1);
+                        encoder.write(v);
+                        previous = index;
+                    }
+                }
+            }
+        }
+        Entry entry = new Entry(encoder.toByteArray());
+        entries.add(entry);
+        memory += entry.length;
+        spillOldest();
+    }
+
+    /**
+     * Records that the generations after the last recorded one repeat a
+     * cycle up to the given generation, e.g. after a generator skipped to its
+     * last generation. These generations are decoded from the last period of
+     * the recorded ones, so the history keeps reaching the end of the run.
+     *
+     * @param period The period of the cycle the last recorded generation is in
+     * @param lastGeneration The last generation of the run
+     */
+    public synchronized void repeat(int period, int lastGeneration) {
+        int recorded = firstGeneration + entries.size() - 1;
+        if (period < 1 || entries.isEmpty() || repeatedTo >= 0 || lastGeneration <= recorded) {
+            throw new IllegalArgumentException("Generations " + (recorded + 1) + " to " + lastGeneration
+                    + " can not repeat a cycle of " + period);
+        }
+        this.period = period;
+        this.repeatedTo = lastGeneration;
+    }
+
+    /**
+     * Decodes a recorded generation.
+     *
+     * @param generation The number of the generation
+     * @return The cells of the generation row by row
+     * @throws IllegalArgumentException If the generation has not been recorded
+     */
+    public synchronized int[] seek(int generation) {
+        if (generation < firstGeneration || generation > getLastGeneration()) {
+            throw new IllegalArgumentException("Generation " + generation + " has not been recorded");
+        }
+        int recorded = firstGeneration + entries.size() - 1;
+        int source = generation;
+        if (generation > recorded) {
+            //The same as the generation of the last period that is as far from the end of the cycle
+            source = recorded - (period - (generation - recorded) % period) % period;
+            if (source < firstGeneration) {
+                throw new IllegalArgumentException("The cycle of generation " + generation + " has not been recorded");
+            }
+        }
+        int target = source - firstGeneration;
+        int keyframe = target - target % keyframeInterval;
+        int[] cells = new int[rows * columns];
+        try {
+            ByteBuffer data = read(keyframe);
+            int index = 0;
+            while (data.hasRemaining()) {
+                int value = Encoder.read(data);
+                int run = Encoder.read(data);
+                Arrays.fill(cells, index, index + run, value);
+                index += run;
+            }
+            for (int i = keyframe + 1; i <= target; i++) {
+                data = read(i);
+                index = -1;
+                while (data.hasRemaining()) {
+                    index += Encoder.read(data) + 1;
+                    cells[index] = Encoder.read(data);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("The history file can not be read", ex);
+        }
+        return cells;
+    }
+
+    /**
+     * Forgets all recorded generations.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        memory = 0;
+        spilled = 0;
+        firstGeneration = 0;
+        repeatedTo = -1;
+        if (spill != null) {
+            try {
+                spill.setLength(0);
+            } catch (IOException ex) {
+                Logger.getLogger(History.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Forgets all recorded generations and deletes the temporary file.
+     */
+    public synchronized void close() {
+        clear();
+        last = null;
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException ex) {
+                Logger.getLogger(History.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            spillFile.delete();
+            spill = null;
+        }
+    }
+
+    /**
+     *
+     * @return The first recorded generation
+     */
+    public synchronized int getFirstGeneration() {
+        return firstGeneration;
+    }
+
+    /**
+     *
+     * @return The last recorded generation, smaller than the first one if
+     * nothing has been recorded
+     */
+    public synchronized int getLastGeneration() {
+        return (repeatedTo >= 0) ? repeatedTo : firstGeneration + entries.size() - 1;
+    }
+
+    /**
+     *
+     * @return Number of rows of the recorded grid
+     */
+    public synchronized int getRows() {
+        return rows;
+    }
+
+    /**
+     *
+     * @return Number of columns of the recorded grid
+     */
+    public synchronized int getColumns() {
+        return columns;
+    }
+
+    private ByteBuffer read(int index) throws IOException {
+        Entry entry = entries.get(index);
+        if (entry.data != null) {
+            return ByteBuffer.wrap(entry.data);
+        }
+        return spill.getChannel().map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+    }
+
+    private void spillOldest() {
+        if (memory <= memoryBudget) {
+            return;
+        }
+        try {
+            if (spill == null) {
+                spillFile = File.createTempFile("history", ".bin");
+                spillFile.deleteOnExit();
+                spill = new RandomAccessFile(spillFile, "rw");
+            }
+            FileChannel channel = spill.getChannel();
+            //Keep the newest generation in memory, it is the one shown while a run is going on
+            while (memory > memoryBudget && spilled < entries.size() - 1) {
+                Entry entry = entries.get(spilled++);
+                entry.offset = channel.size();
+                channel.write(ByteBuffer.wrap(entry.data), entry.offset);
+                entry.data = null;
+                memory -= entry.length;
+            }
+        } catch (IOException ex) {
+            //Keep everything in memory rather than losing generations
+            Logger.getLogger(History.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * A recorded generation, either in memory or in the file.
+     */
+    private static class Entry {
+
+        private final int length;
+        private byte[] data;
+        private long offset;
+
+        Entry(byte[] data) {
+            this.data = data;
+            this.length = data.length;
+        }
+    }
+
+    /**
+     * Writes non-negative ints with seven bits per byte, the highest bit marks
+     * that another byte follows.
+     */
+    private static class Encoder {
+
+        private byte[] buffer = new byte[1024];
+        private int size = 0;
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(int value) {
+            if (size + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        static int read(ByteBuffer data) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
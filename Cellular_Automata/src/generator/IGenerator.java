@@ -1,6 +1,9 @@
 package generator;
 
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
 
 /**
  * An Interface Definition for the implementation of a Picture Generator.
@@ -26,7 +29,13 @@ public interface IGenerator extends IObservable {
     public int getGenerations();
 
     /**
-     * Saves a PNG with the current settings of the generator.
+     *
+     * @return The Number of the Generation currently held by the generator
+     */
+    public int getCurrentGeneration();
+
+    /**
+     * Saves a PNG of the current generation, no new generation is calculated.
      */
     public void save();
 
@@ -41,6 +50,23 @@ public interface IGenerator extends IObservable {
      * Setup Generator
      */
     public void setup();
+
+    /**
+     * Configures the generator without showing the setup dialog. Keys that
+     * are not known to the generator are ignored, missing keys keep their
+     * current value.
+     *
+     * @param parameters The Parameters for the generator
+     * @throws IllegalArgumentException If a value can not be parsed
+     */
+    public void configure(Properties parameters);
+
+    /**
+     *
+     * @return The current settings of the generator in the form accepted by
+     * configure
+     */
+    public Properties getParameters();
     
     /**
      *
@@ -54,6 +80,84 @@ public interface IGenerator extends IObservable {
      */
     public BufferedImage generate();
 
+    /**
+     * Builds the start configuration for the current settings without
+     * rendering an image.
+     */
+    public void reset();
+
+    /**
+     * Calculates the next generation without rendering an image.
+     */
+    public void step();
+
+    /**
+     *
+     * @return An Image of the current generation with a pixel per cell.
+     */
+    public BufferedImage render();
+
+    /**
+     * The display and the saved images enlarge the images of render to
+     * quadrats of this size.
+     *
+     * @return The size of the quadrat of a cell in pixels
+     */
+    public int getQuadratSize();
+
+    /**
+     *
+     * @return The Number of cells per state in the current generation.
+     */
+    public Map<String, Long> getStatistics();
+
+    /**
+     * The generator records the durations of its steps, renders, status
+     * notifications and saves into its metrics, callers record the frames
+     * they drop.
+     *
+     * @return The runtime metrics of the generator
+     */
+    public GeneratorMetrics getMetrics();
+
+    /**
+     * The image of every generation calculated by initialize and generate is
+     * published here, a dropped frame counts as a frame drop of the metrics.
+     *
+     * @return The publisher of the frames
+     */
+    public GenerationPublisher<GenerationFrame> getFramePublisher();
+
+    /**
+     * The statistics of every generation calculated by initialize and
+     * generate are published here. They are only counted while somebody
+     * subscribed.
+     *
+     * @return The publisher of the statistics
+     */
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher();
+
+    /**
+     * Writes the current generation, the parameters and the grid into a
+     * Snapshot file.
+     *
+     * @param filename The file for the checkpoint
+     * @throws IOException If the file can not be written
+     * @throws IllegalStateException If the generator has not been run yet
+     */
+    public void checkpoint(String filename) throws IOException;
+
+    /**
+     * Loads a Snapshot written by checkpoint. The parameters of the snapshot
+     * replace the current settings and the next call of reset keeps the
+     * restored grid, so that a run continues with the restored generation.
+     * The status is READY afterwards.
+     *
+     * @param filename The file of the checkpoint
+     * @throws IOException If the file is not a snapshot of this generator
+     */
+    public void restore(String filename) throws IOException;
+
     /**
      * Possible Generator Status Values
      */
@@ -82,6 +186,11 @@ public interface IGenerator extends IObservable {
         /**
          * Generator is not configured
          */
-        UNCONFIGURED
+        UNCONFIGURED,
+        /**
+         * Generator has reached a still life or a cycle and skipped to the
+         * last generation, which is the same as after calculating all of them
+         */
+        STABLE
     }
 }
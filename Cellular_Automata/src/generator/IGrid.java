@@ -0,0 +1,57 @@
+package generator;
+
+import java.io.Closeable;
+
+/**
+ * An Interface Definition for the storage of a two dimensional grid of cells.
+ * Every cell holds a non-negative int value whose meaning is chosen by the
+ * generator, see GridStorage for the available implementations.
+ */
+public interface IGrid extends Closeable {
+
+    /**
+     *
+     * @return Number of rows of the grid
+     */
+    public int getRows();
+
+    /**
+     *
+     * @return Number of columns of the grid
+     */
+    public int getColumns();
+
+    /**
+     *
+     * @param row The row of the cell
+     * @param column The column of the cell
+     * @return The value of the cell
+     */
+    public int get(int row, int column);
+
+    /**
+     *
+     * @param row The row of the cell
+     * @param column The column of the cell
+     * @param value The new value of the cell
+     */
+    public void set(int row, int column, int value);
+
+    /**
+     *
+     * @param value Sets every cell to this value
+     */
+    public void fill(int value);
+
+    /**
+     *
+     * @param source Grid of the same size whose values are copied into this one
+     */
+    public void copy(IGrid source);
+
+    /**
+     * Releases the storage of the grid, the grid must not be used afterwards.
+     */
+    @Override
+    public void close();
+}
@@ -1,6 +1,6 @@
 package generator;
 
-import java.util.Observer;
+import java.util.concurrent.Executor;
 
 /**
  * Interface with methods for an implementation of the observer pattern.
@@ -9,13 +9,14 @@ public interface IObservable {
 
     /**
      *
-     * @param o Add this Observer to the list of registered observers.
+     * @param listener Add this listener for the status, see StatusChannel
+     * @param executor Calls the listener, e.g. SwingUtilities::invokeLater
      */
-    void addObserver(Observer o);
+    void addStatusListener(IStatusListener listener, Executor executor);
 
     /**
      *
-     * @param o Delete this Observer from list of registered observers
+     * @param listener Delete this listener from the registered listeners
      */
-    void deleteObserver(Observer o);
+    void removeStatusListener(IStatusListener listener);
 }
@@ -0,0 +1,31 @@
+package generator;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An Interface Definition for generators that can show earlier generations of
+ * a run again. The generations are recorded into a History while the
+ * generator runs.
+ */
+public interface IRewindable {
+
+    /**
+     *
+     * @param history Records every generation from now on, null stops recording
+     */
+    public void setHistory(History history);
+
+    /**
+     *
+     * @return The history the generations are recorded to, null if there is none
+     */
+    public History getHistory();
+
+    /**
+     *
+     * @param generation A recorded generation
+     * @return An Image of the recorded generation
+     * @throws IllegalArgumentException If the generation has not been recorded
+     */
+    public BufferedImage renderGeneration(int generation);
+}
@@ -0,0 +1,21 @@
+package generator;
+
+import java.util.Set;
+
+/**
+ * Listener for the status of a generator, see StatusChannel.
+ */
+public interface IStatusListener {
+
+    /**
+     * Called on the executor of the listener once for any number of status
+     * changes published in the meantime.
+     *
+     * @param generator The generator
+     * @param status The latest status of the generator
+     * @param published The statuses published since the previous call,
+     * including status
+     */
+    void statusChanged(IGenerator generator, IGenerator.GeneratorStatusType status,
+            Set<IGenerator.GeneratorStatusType> published);
+}
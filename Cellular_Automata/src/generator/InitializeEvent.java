@@ -0,0 +1,15 @@
+package generator;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of building the start configuration of a run, see
+ * IGenerator.reset.
+ */
+@Name("cellularautomata.Initialize")
+@Label("Initialize")
+@Description("Building the start configuration of a run")
+public final class InitializeEvent extends GeneratorEvent {
+}
@@ -0,0 +1,79 @@
+package generator;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Durations of a phase of the runs of a generator, e.g. its steps, as shown
+ * by JMX. All durations are in milliseconds.
+ */
+public class PhaseStatistics {
+
+    private final long count;
+    private final double mean;
+    private final double median;
+    private final double p99;
+    private final double max;
+
+    /**
+     * Constructor
+     *
+     * @param count Number of measured durations
+     * @param mean Mean duration
+     * @param median Median duration
+     * @param p99 99th percentile of the durations
+     * @param max Longest duration
+     */
+    @ConstructorProperties({"count", "mean", "median", "p99", "max"})
+    public PhaseStatistics(long count, double mean, double median, double p99, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.median = median;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     *
+     * @return Number of measured durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     *
+     * @return Mean duration
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     *
+     * @return Median duration
+     */
+    public double getMedian() {
+        return median;
+    }
+
+    /**
+     *
+     * @return 99th percentile of the durations
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     *
+     * @return Longest duration
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.3f median=%.3f p99=%.3f max=%.3f ms", count, mean, median, p99, max);
+    }
+}
@@ -0,0 +1,136 @@
+package generator;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Seeded random numbers for the start configuration and the steps of a run.
+ *
+ * The rows of a grid are filled in parallel, in blocks of BLOCK_ROWS rows.
+ * Every block draws from a SplittableRandom of its own, which only depends on
+ * the seed and the number of the block, so a seed gives the same grid no
+ * matter how many threads fill it. The same holds for the random numbers of
+ * a generation, so a run restored from a checkpoint continues exactly like
+ * the run that wrote it.
+ */
+public class RandomFill {
+
+    /**
+     * Number of rows filled with the same SplittableRandom
+     */
+    public static final int BLOCK_ROWS = 16;
+
+    private static final int PRECISION = 32; // bits of a probability used by bits
+
+    private final long seed;
+
+    /**
+     * Constructor
+     *
+     * @param seed The seed of all random numbers of the run
+     */
+    public RandomFill(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     *
+     * @return The seed of all random numbers of the run
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Calls the filler for every row, blocks of rows in parallel. The filler
+     * must only write cells of the row it is called for.
+     *
+     * @param rows Number of rows of the grid
+     * @param filler Fills a row with the random numbers it is given
+     */
+    public void fill(int rows, RowFiller filler) {
+        int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream.range(0, blocks).parallel().forEach((int block) -> {
+            SplittableRandom random = stream(block);
+            int end = Math.min(rows, (block + 1) * BLOCK_ROWS);
+            for (int row = block * BLOCK_ROWS; row < end; row++) {
+                filler.fill(row, random);
+            }
+        });
+    }
+
+    /**
+     *
+     * @param generation The number of the generation
+     * @return The random numbers for calculating the generation
+     */
+    public SplittableRandom forGeneration(int generation) {
+        return stream(-1L - generation);
+    }
+
+    private SplittableRandom stream(long index) {
+        return new SplittableRandom(CycleDetector.key(seed + CycleDetector.key(index)));
+    }
+
+    /**
+     * Draws 64 cells at once. A bit is set with probability p, which is
+     * rounded to 32 binary digits: starting with no bits set, every digit
+     * from the last one to the first combines the bits with a random word,
+     * OR for a one and AND for a zero, which takes the probability of a set
+     * bit halfway to 1 or to 0.
+     *
+     * @param random The random numbers
+     * @param p The probability of a set bit
+     * @return 64 random bits
+     */
+    public static long bits(SplittableRandom random, double p) {
+        if (p >= 1.0) {
+            return -1L;
+        }
+        long digits = (p > 0.0) ? (long) (p * (1L << PRECISION)) : 0;
+        if (digits == 0) {
+            return 0;
+        }
+        long bits = 0;
+        //The trailing zeros would AND with no bits set
+        for (int digit = Long.numberOfTrailingZeros(digits); digit < PRECISION; digit++) {
+            long word = random.nextLong();
+            bits = (((digits >>> digit) & 1) != 0) ? (bits | word) : (bits & word);
+        }
+        return bits;
+    }
+
+    /**
+     * Sets the cells of a row to 1 with probability p and to 0 otherwise.
+     *
+     * @param row The cells
+     * @param from The first cell to set
+     * @param to The cell after the last one to set
+     * @param random The random numbers
+     * @param p The probability of a 1
+     */
+    public static void fill(int[] row, int from, int to, SplittableRandom random, double p) {
+        for (int word = from; word < to; word += 64) {
+            long bits = bits(random, p);
+            int end = Math.min(to, word + 64);
+            for (int i = word; i < end; i++) {
+                row[i] = (int) bits & 1;
+                bits >>>= 1;
+            }
+        }
+    }
+
+    /**
+     * Fills one row of a grid.
+     */
+    @FunctionalInterface
+    public interface RowFiller {
+
+        /**
+         *
+         * @param row The row to fill
+         * @param random The random numbers of the block of the row
+         */
+        void fill(int row, SplittableRandom random);
+    }
+}
@@ -0,0 +1,15 @@
+package generator;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of rendering the image of a generation, see
+ * IGenerator.render.
+ */
+@Name("cellularautomata.Render")
+@Label("Render")
+@Description("Rendering the image of a generation")
+public final class RenderEvent extends GeneratorEvent {
+}
@@ -0,0 +1,352 @@
+package generator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Binary checkpoint of the state of a generator.
+ *
+ * A snapshot holds a header and a number of planes. The header contains the
+ * class of the generator, the generation, the seed of the random numbers (0 if
+ * the generator is not seeded) and the parameters as returned by
+ * IGenerator.getParameters. A plane stores one value per cell with a fixed
+ * number of bits (1, 2, 4, 8, 16 or 32), e.g. a Game of Life needs a single
+ * plane with one bit per cell. The values are packed into big endian longs and
+ * every row starts with a new long, so a row can be found without reading the
+ * rows before.
+ *
+ * Layout of the file:
+ *      - magic "CASN", version and length of the header as int,
+ *      - header: generator, generation, seed, parameters, rows, columns,
+ *        number of planes and the bits per cell of every plane,
+ *      - padding to a multiple of 8 bytes,
+ *      - the planes one after another.
+ *
+ * Snapshots are written to a temporary file that replaces the target when it
+ * is complete, so a crash never leaves a broken checkpoint behind. Reading
+ * maps the planes into memory instead of copying the file, so only the rows
+ * that are unpacked are loaded by the operating system.
+ */
+public class Snapshot {
+
+    /**
+     * Version of the file format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4341534E; // "CASN"
+    private static final int PREFIX = 12; // magic, version and header length
+    private static final long WINDOW = 1 << 30; // maximum size of a single mapping
+
+    private final String generator;
+    private final int generation;
+    private final long seed;
+    private final Properties parameters;
+    private final int rows;
+    private final int columns;
+    private final List<Integer> bits = new ArrayList<>();
+    private final List<IntBinaryOperator> sources = new ArrayList<>();
+    private final List<MappedByteBuffer[]> mappings = new ArrayList<>();
+
+    /**
+     * Constructor for a snapshot that is going to be written.
+     *
+     * @param generator The generator whose state is stored
+     * @param seed The seed of the random numbers, 0 if there is none
+     * @param rows Number of rows of the grid
+     * @param columns Number of columns of the grid
+     */
+    public Snapshot(IGenerator generator, long seed, int rows, int columns) {
+        this(generator.getClass().getName(), generator.getCurrentGeneration(), seed,
+                generator.getParameters(), rows, columns);
+    }
+
+    private Snapshot(String generator, int generation, long seed, Properties parameters, int rows, int columns) {
+        this.generator = generator;
+        this.generation = generation;
+        this.seed = seed;
+        this.parameters = parameters;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Adds a plane to a snapshot that is going to be written.
+     *
+     * @param bitsPerCell Bits per cell, see bitsFor
+     * @param source Returns the value of the cell at (row, column)
+     * @return This snapshot for chaining
+     */
+    public Snapshot addPlane(int bitsPerCell, IntBinaryOperator source) {
+        if (Integer.bitCount(bitsPerCell) != 1 || bitsPerCell > 32) {
+            throw new IllegalArgumentException("Bits per cell must be 1, 2, 4, 8, 16 or 32: " + bitsPerCell);
+        }
+        bits.add(bitsPerCell);
+        sources.add(source);
+        return this;
+    }
+
+    /**
+     * Writes the snapshot. The file is replaced only once it is complete.
+     *
+     * @param file The file for the snapshot
+     * @throws IOException If the file can not be written
+     */
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeUTF(generator);
+        header.writeInt(generation);
+        header.writeLong(seed);
+        TreeSet<String> keys = new TreeSet<>(parameters.stringPropertyNames());
+        header.writeInt(keys.size());
+        for (String key : keys) {
+            header.writeUTF(key);
+            header.writeUTF(parameters.getProperty(key));
+        }
+        header.writeInt(rows);
+        header.writeInt(columns);
+        header.writeInt(bits.size());
+        for (int b : bits) {
+            header.writeInt(b);
+        }
+
+        File temporary = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+            for (long i = PREFIX + headerBytes.size(); i < dataOffset(headerBytes.size()); i++) {
+                out.writeByte(0);
+            }
+            for (int p = 0; p < bits.size(); p++) {
+                writePlane(out, bits.get(p), sources.get(p));
+            }
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writePlane(DataOutputStream out, int bitsPerCell, IntBinaryOperator source) throws IOException {
+        int perWord = 64 / bitsPerCell;
+        long mask = (1L << bitsPerCell) - 1;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c += perWord) {
+                long word = 0;
+                int end = Math.min(columns, c + perWord);
+                for (int k = c; k < end; k++) {
+                    word |= (source.applyAsInt(r, k) & mask) << ((k - c) * bitsPerCell);
+                }
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Reads the header of a snapshot and maps its planes into memory.
+     *
+     * @param file The file of the snapshot
+     * @return The snapshot, the planes are read with readPlane
+     * @throws IOException If the file is not a snapshot or is incomplete
+     */
+    public static Snapshot read(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < PREFIX || in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a snapshot");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(file + " has the unsupported snapshot version " + version);
+            }
+            int length = in.readInt();
+            if (length < 0 || PREFIX + (long) length > in.length()) {
+                throw new IOException(file + " is incomplete");
+            }
+            byte[] headerBytes = new byte[length];
+            in.readFully(headerBytes);
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBytes));
+            String generator = header.readUTF();
+            int generation = header.readInt();
+            long seed = header.readLong();
+            Properties parameters = new Properties();
+            for (int i = header.readInt(); i > 0; i--) {
+                parameters.setProperty(header.readUTF(), header.readUTF());
+            }
+            Snapshot snapshot = new Snapshot(generator, generation, seed, parameters,
+                    header.readInt(), header.readInt());
+            for (int i = header.readInt(); i > 0; i--) {
+                snapshot.bits.add(header.readInt());
+            }
+
+            //Map every plane in windows of whole rows
+            FileChannel channel = in.getChannel();
+            long offset = dataOffset(length);
+            for (int bitsPerCell : snapshot.bits) {
+                long rowBytes = 8L * snapshot.wordsPerRow(bitsPerCell);
+                long end = offset + rowBytes * snapshot.rows;
+                if (end > in.length()) {
+                    throw new IOException(file + " is incomplete");
+                }
+                int rowsPerWindow = snapshot.rowsPerWindow(bitsPerCell);
+                MappedByteBuffer[] windows = new MappedByteBuffer[(snapshot.rows + rowsPerWindow - 1)
+                        / rowsPerWindow];
+                for (int w = 0; w < windows.length; w++) {
+                    int count = Math.min(rowsPerWindow, snapshot.rows - w * rowsPerWindow);
+                    windows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+                            offset + w * rowsPerWindow * rowBytes, count * rowBytes);
+                }
+                snapshot.mappings.add(windows);
+                offset = end;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Unpacks a plane of a snapshot that has been read.
+     *
+     * @param plane Index of the plane in the order the planes were added
+     * @param target Receives the value of every cell
+     */
+    public void readPlane(int plane, CellConsumer target) {
+        int bitsPerCell = bits.get(plane);
+        MappedByteBuffer[] windows = mappings.get(plane);
+        int perWord = 64 / bitsPerCell;
+        int words = wordsPerRow(bitsPerCell);
+        int rowsPerWindow = rowsPerWindow(bitsPerCell);
+        long mask = (1L << bitsPerCell) - 1;
+        for (int r = 0; r < rows; r++) {
+            MappedByteBuffer window = windows[r / rowsPerWindow];
+            int position = (r % rowsPerWindow) * words * 8;
+            for (int w = 0; w < words; w++) {
+                long word = window.getLong(position + w * 8);
+                int c = w * perWord;
+                int end = Math.min(columns, c + perWord);
+                for (int k = c; k < end; k++) {
+                    target.accept(r, k, (int) ((word >>> ((k - c) * bitsPerCell)) & mask));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the snapshot has been written by the given generator.
+     *
+     * @param expected The generator that is going to be restored
+     * @param planes The number of planes the generator needs
+     * @throws IOException If the snapshot belongs to another generator
+     */
+    public void check(IGenerator expected, int planes) throws IOException {
+        if (!generator.equals(expected.getClass().getName())) {
+            throw new IOException("The snapshot belongs to " + generator + " and not to "
+                    + expected.getClass().getName());
+        }
+        if (bits.size() != planes) {
+            throw new IOException("The snapshot holds " + bits.size() + " planes instead of " + planes);
+        }
+    }
+
+    /**
+     *
+     * @param max The largest value of a plane
+     * @return The smallest number of bits per cell that holds every value up to max
+     */
+    public static int bitsFor(int max) {
+        int needed = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        return (needed <= 1) ? 1 : Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private int wordsPerRow(int bitsPerCell) {
+        return (int) (((long) columns * bitsPerCell + 63) / 64);
+    }
+
+    private int rowsPerWindow(int bitsPerCell) {
+        long rowBytes = 8L * wordsPerRow(bitsPerCell);
+        return (int) Math.max(1, Math.min(rows, WINDOW / Math.max(1, rowBytes)));
+    }
+
+    private static long dataOffset(int headerLength) {
+        return (PREFIX + headerLength + 7) & ~7L;
+    }
+
+    /**
+     *
+     * @return The class name of the generator that wrote the snapshot
+     */
+    public String getGenerator() {
+        return generator;
+    }
+
+    /**
+     *
+     * @return The generation held by the snapshot
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     *
+     * @return The seed of the random numbers, 0 if the generator is not seeded
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     *
+     * @return The parameters of the generator in the form accepted by configure
+     */
+    public Properties getParameters() {
+        return parameters;
+    }
+
+    /**
+     *
+     * @return The number of rows of the grid
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     *
+     * @return The number of columns of the grid
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Receives the cells of a plane.
+     */
+    @FunctionalInterface
+    public interface CellConsumer {
+
+        /**
+         *
+         * @param row The row of the cell
+         * @param column The column of the cell
+         * @param value The value stored for the cell
+         */
+        void accept(int row, int column, int value);
+    }
+}
@@ -0,0 +1,111 @@
+package generator;
+
+import generator.IGenerator.GeneratorStatusType;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The status of a generator and its listeners.
+ *
+ * Publishing a status sets an atomic field, and for every listener adds the
+ * status to the statuses waiting for it. Only the first status after a
+ * delivery hands a task to the executor of the listener, later ones are
+ * delivered with it. So a generator publishing a status every generation
+ * pays a few atomic operations per listener and never waits for one, while
+ * e.g. the GUI is called at most once per turn of the event dispatch thread.
+ */
+public class StatusChannel {
+
+    private final IGenerator generator;
+    private volatile GeneratorStatusType status;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param generator The generator passed to the listeners
+     * @param status The initial status
+     */
+    public StatusChannel(IGenerator generator, GeneratorStatusType status) {
+        this.generator = generator;
+        this.status = status;
+    }
+
+    /**
+     *
+     * @return The latest status
+     */
+    public GeneratorStatusType get() {
+        return status;
+    }
+
+    /**
+     * Sets the status and notifies the listeners on their executors.
+     *
+     * @param status The new status
+     */
+    public void publish(GeneratorStatusType status) {
+        this.status = status;
+        for (Subscription subscription : subscriptions) {
+            subscription.publish(status);
+        }
+    }
+
+    /**
+     *
+     * @param listener Called with the status changes
+     * @param executor Runs the calls of the listener, e.g.
+     * SwingUtilities::invokeLater
+     */
+    public void subscribe(IStatusListener listener, Executor executor) {
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    /**
+     * Removes a listener, a call that is already on its way may still happen.
+     *
+     * @param listener A listener given to subscribe
+     */
+    public void unsubscribe(IStatusListener listener) {
+        subscriptions.removeIf((Subscription subscription) -> subscription.listener == listener);
+    }
+
+    private class Subscription {
+
+        private final IStatusListener listener;
+        private final Executor executor;
+        private final AtomicInteger pending = new AtomicInteger(); // a bit per status waiting for delivery
+        private final Runnable delivery = this::deliver;
+
+        Subscription(IStatusListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void publish(GeneratorStatusType published) {
+            int bit = 1 << published.ordinal();
+            if (pending.getAndAccumulate(bit, (int bits, int added) -> bits | added) == 0) {
+                executor.execute(delivery);
+            }
+        }
+
+        void deliver() {
+            int bits = pending.getAndSet(0);
+            if (bits == 0) {
+                return;
+            }
+            //A status set after the bits were taken is delivered again with its bit
+            GeneratorStatusType current = status;
+            Set<GeneratorStatusType> published = EnumSet.of(current);
+            for (GeneratorStatusType value : GeneratorStatusType.values()) {
+                if ((bits & (1 << value.ordinal())) != 0) {
+                    published.add(value);
+                }
+            }
+            listener.statusChanged(generator, current, published);
+        }
+    }
+}
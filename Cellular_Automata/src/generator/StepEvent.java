@@ -0,0 +1,39 @@
+package generator;
+
+import java.util.function.LongSupplier;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of calculating a generation, see IGenerator.step.
+ */
+@Name("cellularautomata.Step")
+@Label("Step")
+@Description("Calculating the next generation")
+public final class StepEvent extends GeneratorEvent {
+
+    @Label("Cells Changed")
+    @Description("Cells with another state than in the previous generation, -1 if unknown")
+    private long cellsChanged;
+
+    /**
+     * Ends the event and commits it, if it is recorded. The changed cells are
+     * only counted then.
+     *
+     * @param generator The name of the generator
+     * @param generation The number of the calculated generation
+     * @param rows Rows of the grid
+     * @param columns Columns of the grid
+     * @param cellsChanged Counts the cells with another state than in the
+     * previous generation, -1 if the generator does not know
+     */
+    public void commit(String generator, int generation, int rows, int columns, LongSupplier cellsChanged) {
+        end();
+        if (shouldCommit()) {
+            this.cellsChanged = cellsChanged.getAsLong();
+            set(generator, generation, rows, columns);
+            commit();
+        }
+    }
+}
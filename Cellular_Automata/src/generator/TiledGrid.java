@@ -0,0 +1,200 @@
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Implementation of the IGrid Interface outside of the Java heap.
+ *
+ * The grid is split into square tiles of 1024 x 1024 cells, every tile is a
+ * ByteBuffer of its own. A cell takes 1, 2 or 4 bytes, depending on the
+ * largest value the grid has to hold. The tiles are either direct buffers,
+ * which are limited by -XX:MaxDirectMemorySize, or parts of a memory mapped
+ * temporary file, which are limited by the disk only and are paged in and out
+ * by the operating system. Either way the garbage collector never scans the
+ * cells, and a grid with more than 2^31 cells needs no more heap than the
+ * array of tiles.
+ */
+public class TiledGrid implements IGrid {
+
+    private static final int SHIFT = 10;
+    private static final int TILE = 1 << SHIFT; // cells per side of a tile
+    private static final int MASK = TILE - 1;
+
+    private final int rows;
+    private final int columns;
+    private final int bytesPerCell;
+    private final int tilesPerRow;
+    private final ByteBuffer[] tiles;
+    private final File file; // null for direct buffers
+
+    private TiledGrid(int rows, int columns, int bytesPerCell, File file) {
+        this.rows = rows;
+        this.columns = columns;
+        this.bytesPerCell = bytesPerCell;
+        this.tilesPerRow = (columns + MASK) >>> SHIFT;
+        this.tiles = new ByteBuffer[((rows + MASK) >>> SHIFT) * tilesPerRow];
+        this.file = file;
+    }
+
+    /**
+     * Creates a grid in direct buffers.
+     *
+     * @param rows Number of rows of the grid
+     * @param columns Number of columns of the grid
+     * @param maxValue The largest value a cell has to hold
+     * @return The grid, all cells are 0
+     */
+    public static TiledGrid allocateDirect(int rows, int columns, int maxValue) {
+        TiledGrid grid = new TiledGrid(rows, columns, bytesFor(maxValue), null);
+        for (int t = 0; t < grid.tiles.length; t++) {
+            grid.tiles[t] = ByteBuffer.allocateDirect(grid.tileBytes()).order(ByteOrder.nativeOrder());
+        }
+        return grid;
+    }
+
+    /**
+     * Creates a grid in a memory mapped temporary file, which is deleted when
+     * the grid is closed.
+     *
+     * @param directory Directory for the file, null for the default temporary directory
+     * @param rows Number of rows of the grid
+     * @param columns Number of columns of the grid
+     * @param maxValue The largest value a cell has to hold
+     * @return The grid, all cells are 0
+     * @throws IOException If the file can not be created or mapped
+     */
+    public static TiledGrid map(File directory, int rows, int columns, int maxValue) throws IOException {
+        File file = File.createTempFile("grid", ".bin", directory);
+        file.deleteOnExit();
+        TiledGrid grid = new TiledGrid(rows, columns, bytesFor(maxValue), file);
+        try (RandomAccessFile storage = new RandomAccessFile(file, "rw")) {
+            long tileBytes = grid.tileBytes();
+            //The file is sparse, disk space is used for the tiles that are written only
+            storage.setLength(tileBytes * grid.tiles.length);
+            FileChannel channel = storage.getChannel();
+            for (int t = 0; t < grid.tiles.length; t++) {
+                grid.tiles[t] = channel.map(FileChannel.MapMode.READ_WRITE, t * tileBytes, tileBytes)
+                        .order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException | RuntimeException ex) {
+            file.delete();
+            throw ex;
+        }
+        return grid;
+    }
+
+    private static int bytesFor(int maxValue) {
+        if (maxValue < 0) {
+            throw new IllegalArgumentException("Cells hold non-negative values only");
+        }
+        return (maxValue <= 0xFF) ? 1 : (maxValue <= 0xFFFF) ? 2 : 4;
+    }
+
+    private int tileBytes() {
+        return TILE * TILE * bytesPerCell;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public int get(int row, int column) {
+        ByteBuffer tile = tiles[(row >>> SHIFT) * tilesPerRow + (column >>> SHIFT)];
+        int index = ((row & MASK) << SHIFT) | (column & MASK);
+        switch (bytesPerCell) {
+            case 1:
+                return tile.get(index) & 0xFF;
+            case 2:
+                return tile.getShort(index << 1) & 0xFFFF;
+            default:
+                return tile.getInt(index << 2);
+        }
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        ByteBuffer tile = tiles[(row >>> SHIFT) * tilesPerRow + (column >>> SHIFT)];
+        int index = ((row & MASK) << SHIFT) | (column & MASK);
+        switch (bytesPerCell) {
+            case 1:
+                tile.put(index, (byte) value);
+                break;
+            case 2:
+                tile.putShort(index << 1, (short) value);
+                break;
+            default:
+                tile.putInt(index << 2, value);
+        }
+    }
+
+    @Override
+    public void fill(int value) {
+        if (tiles.length == 0) {
+            return;
+        }
+        //Fill the first tile cell by cell and copy it into the others
+        ByteBuffer first = tiles[0];
+        for (int i = 0; i < TILE * TILE; i++) {
+            switch (bytesPerCell) {
+                case 1:
+                    first.put(i, (byte) value);
+                    break;
+                case 2:
+                    first.putShort(i << 1, (short) value);
+                    break;
+                default:
+                    first.putInt(i << 2, value);
+            }
+        }
+        for (int t = 1; t < tiles.length; t++) {
+            copyTile(first, tiles[t]);
+        }
+    }
+
+    @Override
+    public void copy(IGrid source) {
+        if (source instanceof TiledGrid && ((TiledGrid) source).bytesPerCell == bytesPerCell) {
+            ByteBuffer[] from = ((TiledGrid) source).tiles;
+            for (int t = 0; t < tiles.length; t++) {
+                copyTile(from[t], tiles[t]);
+            }
+            return;
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                set(r, c, source.get(r, c));
+            }
+        }
+    }
+
+    private static void copyTile(ByteBuffer from, ByteBuffer to) {
+        ByteBuffer source = from.duplicate();
+        source.clear();
+        ByteBuffer target = to.duplicate();
+        target.clear();
+        target.put(source);
+    }
+
+    @Override
+    public void close() {
+        //The buffers are released once they are no longer referenced
+        for (int t = 0; t < tiles.length; t++) {
+            tiles[t] = null;
+        }
+        if (file != null) {
+            file.delete();
+        }
+    }
+}
@@ -1,16 +1,40 @@
 
 package generator.epidemic;
 
+import generator.Boundary;
+import generator.GridStorage;
+import generator.History;
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
 import generator.IGenerator;
+import generator.IGrid;
+import generator.IRewindable;
+import generator.IStatusListener;
+import generator.InitializeEvent;
+import generator.RandomFill;
+import generator.RenderEvent;
+import generator.Snapshot;
+import generator.StepEvent;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.Observable;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.function.IntBinaryOperator;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -18,6 +42,7 @@ import javax.swing.JSpinner;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
 import services.IBufferedImageSaveService;
+import services.ImageZoom;
 
 /***Implementation of a cellular automaton modelling an epidemic as a generator.
  * The Epidemic starts with variable (choosable) percentage of empty, healthy and sick cells.
@@ -27,9 +52,11 @@ import services.IBufferedImageSaveService;
  * Additionally, the sick and healthy cells can move, if there are empty cells next to them.
  * This contributes to the spread of infection and modells the living cells, which can move.
  *  
- * This cellular automaton has been modelled as a two dimensional array.
+ * This cellular automaton has been modelled as a two dimensional grid, which is
+ * stored on the Java heap or, for grids larger than the heap, in direct buffers
+ * or a memory mapped file (see GridStorage).
  * The following configuration has been used:
- *      - the edges are fixed,
+ *      - the edges are fixed, toroidal or reflective (see Boundary),
  *      - the game starts with randomly distributed
  *        empty(BLUE), healthy(GREEN) and sick(RED) cells,
  *      - von Neumann neighborhood has been used.
@@ -41,13 +68,13 @@ import services.IBufferedImageSaveService;
  *      - the number of generations for how long a cell stays sick,
  *      - the number of generations for the generator to run.
  */
-public class Epidemic extends Observable implements IGenerator{
+public class Epidemic implements IGenerator, IRewindable{
     private int height = 600;
     private int width = 600;
     private int size = 10; // The size of the quadrat in pixels
     
     private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
-    private IGenerator.GeneratorStatusType generatorStatus;
+    private final GeneratorChannels channels = new GeneratorChannels(this);
     private final IBufferedImageSaveService saveService;
     private String name = "EpidemicsGenerator";
     
@@ -58,9 +85,35 @@ public class Epidemic extends Observable implements IGenerator{
     private double empty = 0.3; // Empty cells ratio
     private double healthy = 0.99; // Healthy cells ratio
     
+    private GridStorage storage = GridStorage.HEAP;
+    private File directory = null; // directory for mapped grids, null for the temporary directory
+    private Boundary boundary = Boundary.FIXED;
+    private Long seed = null; // seed of the start configuration, null for a new one every run
+    private RandomFill random; // random numbers of the current run
+    
+    // Every cell is stored as one int: the ordinal of its state in the lowest
+    // two bits and the sickness counter in the bits above.
+    private static final int EMPTY = State.EMPTY.ordinal();
+    private static final int HEALTHY = State.HEALTHY.ordinal();
+    private static final int SICK = State.SICK.ordinal();
+    private static final int STATE = 3; // mask of the state
+    private static final int COUNTER_SHIFT = 2;
+    
     private int rows;
     private int columns;
-    private Cell [][] cells;
+    private IGrid cells;
+    private IGrid next; // buffer for the next generation, reused between generations and runs
+    private GridStorage gridStorage; // storage of the allocated grids
+    private int gridMaxValue; // largest value the allocated grids can hold
+    private boolean restored = false; // the next reset keeps the cells of a restored checkpoint
+    private History history; // records the generations for rewinding, null if not recording
+    // The neighbours of every row and column, mapped by the boundary. A sick
+    // cell writes into its neighbours, so instead of ghost cells, which would
+    // have to be copied back, the loops look the neighbours up here.
+    private int[] above;
+    private int[] below;
+    private int[] leftOf;
+    private int[] rightOf;
      
     /**
      * Constructor
@@ -84,161 +137,165 @@ public class Epidemic extends Observable implements IGenerator{
 
     @Override
     public BufferedImage initialize() {
-        updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = image.createGraphics();
+        reset();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+    
+    @Override
+    public BufferedImage generate(){
+        step();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public synchronized void reset() {
+        channels.updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        InitializeEvent event = new InitializeEvent();
+        event.begin();
+        if(restored){
+            restored = false;
+            record();
+            channels.getMetrics().recordPopulation(getStatistics().get("sick"));
+            event.commit(name, currentGeneration, rows, columns);
+            return;
+        }
         
         // STARTCONFIGURATION
         rows = (int)(this.height/size);
         columns = (int)(this.width/size);
-        cells = new Cell[rows][columns];
-        // 1. Initiate an array of empty cells
-        for(int i = 0; i < rows; i++){
-            for(int j = 0; j < columns; j++){
-                    cells[i][j] = new Cell(); 
-            } 
-        }
-        // 2. Fill x % of the array with healthy cells
-        for(int i = 0; i < rows; i++){
-            for(int j = 0; j < columns; j++){
-                   int number =(Math.random()< empty)?0:1;  
-                   if(number == 1){
-                       cells[i][j].setState(State.HEALTHY);
-                   } 
-            }
-        }
-       
-        // 3. Make  y % of the healthy cells sick
-        for(int i = 0; i < rows; i++){
-            for(int j = 0; j < columns; j++){
-                   int number =(Math.random() < healthy)?0:1;  
-                   if((cells[i][j].getState() == State.HEALTHY)){
-                       if(number == 1){
-                            cells[i][j] = new Cell(State.SICK, c);
-                       }
-                   } 
+        // Keep the grids of the last run if they still fit the settings
+        allocate();
+        mapNeighbours();
+        // In one pass, 64 cells per draw: x % of the grid is empty, y % of
+        // the other cells are healthy and the rest is sick
+        random = new RandomFill((seed != null) ? seed : new SplittableRandom().nextLong());
+        random.fill(rows, (int i, SplittableRandom rowRandom) -> {
+            for(int word = 0; word < columns; word += 64){
+                long emptyBits = RandomFill.bits(rowRandom, empty);
+                long healthyBits = RandomFill.bits(rowRandom, healthy);
+                for(int j = word; j < Math.min(columns, word + 64); j++){
+                    if((emptyBits & 1) != 0){
+                        cells.set(i, j, EMPTY);
+                    }
+                    else if((healthyBits & 1) != 0){
+                        cells.set(i, j, HEALTHY);
+                    }
+                    else {
+                        cells.set(i, j, SICK | (c << COUNTER_SHIFT));
+                    }
+                    emptyBits >>>= 1;
+                    healthyBits >>>= 1;
+                }
             }
-        }
+        });
         currentGeneration = 1;
-        
-        // DRAW IMAGE
-        for(int k = 0; k < cells.length; k++){
-            int x = k*size;
-            for(int l = 0; l < cells[k].length; l++){
-                int y = l*size;
-                if(cells[k][l].getState() == State.HEALTHY){
-                    // Paint a green rectangle to visualize a healthy cell
-                    g2d.setColor(Color.GREEN);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+        record();
+        channels.getMetrics().recordPopulation(getStatistics().get("sick"));
+        event.commit(name, currentGeneration, rows, columns);
+    }
+
+    private void allocate(){
+        int maxValue = (c << COUNTER_SHIFT) | STATE;
+        if(cells == null || cells.getRows() != rows || cells.getColumns() != columns
+                || gridStorage != storage || maxValue > gridMaxValue){
+            if(cells != null){
+                cells.close();
+                next.close();
+                cells = null;
+                next = null;
+            }
+            try {
+                cells = storage.create(rows, columns, maxValue, directory);
+                next = storage.create(rows, columns, maxValue, directory);
+            } catch (IOException ex) {
+                if(cells != null){
+                    cells.close();
+                    cells = null;
                 }
-                // Paint a red rectangle to visualize a sick cell
-                else if (cells[k][l].getState() == State.SICK){
-                    g2d.setColor(Color.RED);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                } 
-                // Paint a blue rectangle to visualize an empty cell
-                else {
-                    g2d.setColor(Color.BLUE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                }      
+                throw new UncheckedIOException(ex);
             }
+            gridStorage = storage;
+            gridMaxValue = maxValue;
         }
-        g2d.dispose();
-        return image;    
     }
-    
+
+    private void mapNeighbours(){
+        above = new int[rows];
+        below = new int[rows];
+        for(int i = 0; i < rows; i++){
+            above[i] = boundary.source(i - 1, rows);
+            below[i] = boundary.source(i + 1, rows);
+        }
+        leftOf = new int[columns];
+        rightOf = new int[columns];
+        for(int j = 0; j < columns; j++){
+            leftOf[j] = boundary.source(j - 1, columns);
+            rightOf[j] = boundary.source(j + 1, columns);
+        }
+    }
+
     @Override
-    public BufferedImage generate(){
-        updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = image.createGraphics();
+    public synchronized void step(){
+        channels.updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
+        long start = System.nanoTime();
+        StepEvent event = new StepEvent();
+        event.begin();
         
     // AlGORITHM -> Epidemic
         // PHASE 1: Interactions -> Infections
-        // a)Deep copy the existing array into a new one
-        Cell [][] next = new Cell[rows][columns];
-        for(int i = 0; i < rows; i++){
-            for(int j = 0; j < columns; j++){
-                 next[i][j] = new Cell(cells[i][j].getState(), cells[i][j].getCounter());  
-            }
-        }   // There are two arrays existing now, 
+        // a)Copy the existing grid into the buffer for the next generation
+        next.copy(cells);
+            // There are two grids existing now, 
             //which are filled with the cells having the same states.
             
-        //  b)Using the information from the first array
-        //  calculate the states in the next array
-        for (int i = 1; i < rows - 1; i++){
-            for(int j = 1; j < columns - 1; j++){
-                if(cells[i][j].getState() == State.SICK){
-                    Cell left   = cells[i][j-1];
-                    if(left.getState() == State.HEALTHY){
-                        //int number =(Math.random()<0.5)?0:1; 
-                        //if(number == 1){
-                            next[i][j-1] = new Cell(State.SICK, c);
-                        //}
-                    }
-                    Cell right  = cells[i][j+1];
-                    if(right.getState() == State.HEALTHY){
-                        //int number =(Math.random()<0.5)?0:1; 
-                        //if(number == 1){
-                            next[i][j+1] = new Cell(State.SICK, c);
-                        //}
-                    }
-                    Cell upper   = cells[i-1][j];
-                    if(upper.getState() == State.HEALTHY){
-                        //int number =(Math.random()<0.5)?0:1; 
-                        //if(number == 1){
-                            next[i-1][j] = new Cell(State.SICK, c);
-                        //}
-                    }
-                    Cell lower  = cells[i+1][j];
-                    if(lower.getState() == State.HEALTHY){
-                        //int number =(Math.random()<0.5)?0:1; 
-                        //if(number == 1){
-                            next[i+1][j] = new Cell(State.SICK, c);
-                        //}
-                    }
+        //  b)Using the information from the first grid
+        //  calculate the states in the next grid
+        int first = boundary.first();
+        for (int i = first; i < rows - first; i++){
+            for(int j = first; j < columns - first; j++){
+                if((cells.get(i, j) & STATE) == SICK){
+                    infect(i, leftOf[j]); // left
+                    infect(i, rightOf[j]); // right
+                    infect(above[i], j); // upper
+                    infect(below[i], j); // lower
                 } 
                
             } 
         }
         // Now that the new health status of the cells has been calculated,
-        // set the newly calculated array as a main one
+        // set the newly calculated grid as a main one
+        IGrid previous = cells;
         cells = next;
+        next = previous;
         
         // PHASE 2: Movement
-        for (int i = 1; i < rows - 1; i++){
-            for(int j = 1; j < columns - 1; j++){
+        SplittableRandom moves = random.forGeneration(currentGeneration);
+        for (int i = first; i < rows - first; i++){
+            for(int j = first; j < columns - first; j++){
                 // Healthy or sick cells can move ...
-                if((cells[i][j].getState() == State.HEALTHY)
-                    ||(cells[i][j].getState() == State.SICK)){
+                int state = cells.get(i, j) & STATE;
+                if((state == HEALTHY) || (state == SICK)){
                     // (Choose randomly a number: 1, 2, 3 or 4)
-                    int number = 1 + (int)(Math.random()*4);
+                    int number = 1 + moves.nextInt(4);
                     // ... to the left
-                    if((cells[i][j-1].getState() == State.EMPTY)&& (number == 1)){
-                       Cell change = cells[i][j];
-                       cells[i][j] = cells[i][j-1];
-                       cells[i][j-1] = change;
+                    if(((cells.get(i, leftOf[j]) & STATE) == EMPTY) && (number == 1)){
+                       move(i, j, i, leftOf[j]);
                        break;
                     }
                     // ...or up
-                    if((cells[i-1][j].getState() == State.EMPTY)&& (number == 2)){
-                        Cell change = cells[i][j];
-                        cells[i][j] = cells[i-1][j];
-                        cells[i-1][j] = change; 
+                    if(((cells.get(above[i], j) & STATE) == EMPTY) && (number == 2)){
+                        move(i, j, above[i], j);
                         break;
                     }
                     // ...or to the right
-                    if((cells[i][j+1].getState() == State.EMPTY)&& (number == 3)){
-                        Cell change = cells[i][j];
-                        cells[i][j] = cells[i][j+1];
-                        cells[i][j+1] = change;
+                    if(((cells.get(i, rightOf[j]) & STATE) == EMPTY) && (number == 3)){
+                        move(i, j, i, rightOf[j]);
                         break;
                     }
                     // ... or down
-                    if((cells[i+1][j].getState() == State.EMPTY)&& (number == 4)){
-                        Cell change = cells[i][j];
-                        cells[i][j] = cells[i+1][j];
-                        cells[i+1][j] = change;
+                    if(((cells.get(below[i], j) & STATE) == EMPTY) && (number == 4)){
+                        move(i, j, below[i], j);
                         break;
                     }
                 } 
@@ -247,63 +304,158 @@ public class Epidemic extends Observable implements IGenerator{
         }
 
         // PHASE 3: Update of the sickness counter and health status. 
+        long sick = 0;
         for(int i = 0; i < rows; i++){
             for(int j = 0; j < columns; j++){ 
                 // First decrement counter of disease of the sick cells...
-                if(cells[i][j].getState() == State.SICK){
-                    cells[i][j].decrementCounter();
+                int cell = cells.get(i, j);
+                if((cell & STATE) == SICK){
+                    int counter = Math.max(0, (cell >>> COUNTER_SHIFT) - 1);
                     // ... and then if it's zero set the sick cell healthy.
-                    if(cells[i][j].getCounter() == 0){
-                        cells[i][j].setState(State.HEALTHY);
+                    cells.set(i, j, (counter == 0) ? HEALTHY : SICK | (counter << COUNTER_SHIFT));
+                    if(counter > 0){
+                        sick++;
                     }
                 }      
             }
         }
+        channels.getMetrics().recordPopulation(sick);
+        channels.getMetrics().recordStep(System.nanoTime() - start, (long)rows*columns);
+        event.commit(name, currentGeneration + 1, rows, columns, this::changedCells);
         if(currentGeneration < generations - 1){
               currentGeneration++;
+              record();
+        }
+        if(currentGeneration == generations - 1){
+            channels.updateStatus(GeneratorStatusType.FINISHED);
+        }
+    }
+
+    // Cells that changed their state with the last step, next holds the
+    // previous generation
+    private long changedCells(){
+        long changed = 0;
+        for(int i = 0; i < rows; i++){
+            for(int j = 0; j < columns; j++){
+                if((cells.get(i, j) & STATE) != (next.get(i, j) & STATE)){
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    // A healthy neighbour of a sick cell is sick in the next generation
+    private void infect(int i, int j){
+        if((cells.get(i, j) & STATE) == HEALTHY){
+            next.set(i, j, SICK | (c << COUNTER_SHIFT));
         }
+    }
+
+    // Swaps a living cell with an empty one
+    private void move(int i, int j, int k, int l){
+        int cell = cells.get(i, j);
+        cells.set(i, j, cells.get(k, l));
+        cells.set(k, l, cell);
+    }
+
+    @Override
+    public BufferedImage render(){
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        BufferedImage image = render(rows, columns, (int k, int l) -> cells.get(k, l) & STATE);
+        event.commit(name, currentGeneration, rows, columns);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
+        return image;
+    }
+
+    private BufferedImage render(int rows, int columns, IntBinaryOperator stateOf){
+        // A pixel per cell, row k of the grid is the column x = k of the image
+        BufferedImage image = new BufferedImage(Math.max(1, rows), Math.max(1, columns), BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        State[] states = State.values();
 
         // DRAW IMAGE
-        for(int k = 0; k < cells.length; k++){
-            int x = k*size;
-            for(int l = 0; l < cells[k].length; l++){
-                int y = l*size;
-                if(cells[k][l].getState() == State.HEALTHY){
+        for(int k = 0; k < rows; k++){
+            for(int l = 0; l < columns; l++){
+                State state = states[stateOf.applyAsInt(k, l)];
+                if(state == State.HEALTHY){
                     // Paint a green rectangle to visualize a healthy cell
-                    g2d.setColor(Color.GREEN);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                    pixels[l*rows + k] = Color.GREEN.getRGB();
                 }
                 // Paint a red rectangle to visualize a sick cell
-                else if (cells[k][l].getState() == State.SICK){
-                    g2d.setColor(Color.RED);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                else if (state == State.SICK){
+                    pixels[l*rows + k] = Color.RED.getRGB();
                 } 
                 // Paint a blue rectangle to visualize an empty cell
                 else {
-                    g2d.setColor(Color.BLUE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                    pixels[l*rows + k] = Color.BLUE.getRGB();
                 }  
                 
             }
         }
-        g2d.dispose();
-        if(currentGeneration == generations - 1){
-            updateStatus(GeneratorStatusType.FINISHED);
-        }
         return image;
     }
 
-    
+    private void record(){
+        if(history != null){
+            history.record(currentGeneration, rows, columns, (int row, int column) -> cells.get(row, column));
+        }
+    }
+
+    @Override
+    public void setHistory(History history) {
+        this.history = history;
+    }
+
+    @Override
+    public History getHistory() {
+        return history;
+    }
+
+    @Override
+    public BufferedImage renderGeneration(int generation) {
+        History current = history;
+        if(current == null){
+            throw new IllegalArgumentException("Generation " + generation + " has not been recorded");
+        }
+        int[] recorded;
+        int recordedRows;
+        int recordedColumns;
+        synchronized(current){
+            recorded = current.seek(generation);
+            recordedRows = current.getRows();
+            recordedColumns = current.getColumns();
+        }
+        return render(recordedRows, recordedColumns, (int k, int l) -> recorded[k*recordedColumns + l] & STATE);
+    }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        long[] counts = new long[State.values().length];
+        for(int k = 0; k < rows; k++){
+            for(int l = 0; l < columns; l++){
+                counts[cells.get(k, l) & STATE]++;
+            }
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        for(State state : State.values()){
+            statistics.put(state.name().toLowerCase(), counts[state.ordinal()]);
+        }
+        return statistics;
+    }
+
      @Override
     public void save() {
-        updateStatus(IGenerator.GeneratorStatusType.SAVE);
-        this.saveService.saveBufferedImage("new", this.generate());
-        updateStatus(IGenerator.GeneratorStatusType.FINISHED);
+        channels.updateStatus(IGenerator.GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", ImageZoom.zoom(this.render(), size), channels.getMetrics()::recordSave);
+        channels.updateStatus(IGenerator.GeneratorStatusType.FINISHED);
     }
 
     @Override
     public String getStatus() {
-        return this.generatorStatus.toString();
+        return channels.getStatus().toString();
     }
     
        private void showDialog() {
@@ -325,6 +477,7 @@ public class Epidemic extends Observable implements IGenerator{
         JSpinner counterSpinner = new JSpinner(counterModel);
         JSpinner emptySpinner = new JSpinner(emptyModel);
         JSpinner healthySpinner = new JSpinner(healthyModel);
+        JComboBox<Boundary> boundaryCombo = new JComboBox<>(Boundary.values());
         
         JButton generateButton = new JButton("Generate");
         JButton cancelButton = new JButton("Cancel");
@@ -347,6 +500,8 @@ public class Epidemic extends Observable implements IGenerator{
                     emptySpinner,
                     new JLabel("Healthy:"),
                     healthySpinner,
+                    new JLabel("Boundary:"),
+                    boundaryCombo,
                     // here some more parameter Spinners, JComboBoxes
                     generateButton,
                     cancelButton},
@@ -359,7 +514,7 @@ public class Epidemic extends Observable implements IGenerator{
             public void windowClosing(WindowEvent e) {
                 setupDialog.dispose();
                 setupDialogIsOpen = false;
-                updateStatus(IGenerator.GeneratorStatusType.UNCONFIGURED);
+                channels.updateStatus(IGenerator.GeneratorStatusType.UNCONFIGURED);
             }
         });
 
@@ -367,7 +522,7 @@ public class Epidemic extends Observable implements IGenerator{
         cancelButton.addActionListener((ActionEvent e) -> {
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(IGenerator.GeneratorStatusType.UNCONFIGURED);
+            channels.updateStatus(IGenerator.GeneratorStatusType.UNCONFIGURED);
         });
 
         generateButton.addActionListener((ActionEvent e) -> {
@@ -379,10 +534,11 @@ public class Epidemic extends Observable implements IGenerator{
             this.c = (int)counterSpinner.getValue();
             this.empty = ((double)emptySpinner.getValue())/100.0;
             this.healthy = ((double)healthySpinner.getValue())/100.0;
+            this.boundary = (Boundary)boundaryCombo.getSelectedItem();
 
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(IGenerator.GeneratorStatusType.READY);
+            channels.updateStatus(IGenerator.GeneratorStatusType.READY);
         });
 
         setupDialog.setModal(false);
@@ -393,11 +549,101 @@ public class Epidemic extends Observable implements IGenerator{
     @Override
     public void setup() {
         if (!setupDialogIsOpen) {
-            updateStatus(IGenerator.GeneratorStatusType.SETUP);
+            channels.updateStatus(IGenerator.GeneratorStatusType.SETUP);
             showDialog();
         }
     }
 
+    @Override
+    public synchronized void checkpoint(String filename) throws IOException {
+        if(random == null){
+            throw new IllegalStateException("There is no run to write a checkpoint of");
+        }
+        // One plane for the states and one for the sickness counters
+        int maxCounter = 0;
+        for(int i = 0; i < rows; i++){
+            for(int j = 0; j < columns; j++){
+                maxCounter = Math.max(maxCounter, cells.get(i, j) >>> COUNTER_SHIFT);
+            }
+        }
+        new Snapshot(this, random.getSeed(), rows, columns)
+                .addPlane(Snapshot.bitsFor(State.values().length - 1),
+                        (int row, int column) -> cells.get(row, column) & STATE)
+                .addPlane(Snapshot.bitsFor(maxCounter),
+                        (int row, int column) -> cells.get(row, column) >>> COUNTER_SHIFT)
+                .write(new File(filename));
+    }
+
+    @Override
+    public synchronized void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 2);
+        applyParameters(snapshot.getParameters());
+        if(snapshot.getRows() != this.height/size || snapshot.getColumns() != this.width/size){
+            throw new IOException("The grid of the snapshot does not match its parameters");
+        }
+        rows = snapshot.getRows();
+        columns = snapshot.getColumns();
+        try {
+            allocate();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        mapNeighbours();
+        snapshot.readPlane(0, (int row, int column, int value) -> cells.set(row, column, value));
+        snapshot.readPlane(1, (int row, int column, int value)
+                -> cells.set(row, column, cells.get(row, column) | (value << COUNTER_SHIFT)));
+        currentGeneration = snapshot.getGeneration();
+        random = new RandomFill(snapshot.getSeed());
+        restored = true;
+        channels.updateStatus(IGenerator.GeneratorStatusType.READY);
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        applyParameters(parameters);
+        channels.updateStatus(IGenerator.GeneratorStatusType.READY);
+    }
+
+    private void applyParameters(Properties parameters) {
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        this.size = Integer.parseInt(parameters.getProperty("quadrat", String.valueOf(this.size)));
+        
+        this.generations = Integer.parseInt(parameters.getProperty("generations", String.valueOf(this.generations)));
+        this.c = Integer.parseInt(parameters.getProperty("sick", String.valueOf(this.c)));
+        this.empty = Double.parseDouble(parameters.getProperty("empty", String.valueOf(this.empty)));
+        this.healthy = Double.parseDouble(parameters.getProperty("healthy", String.valueOf(this.healthy)));
+        this.storage = GridStorage.valueOf(parameters.getProperty("storage", this.storage.name()).toUpperCase());
+        this.boundary = Boundary.parse(parameters.getProperty("boundary", this.boundary.name()));
+        String seedValue = parameters.getProperty("seed", (this.seed != null) ? String.valueOf(this.seed) : "");
+        this.seed = seedValue.isEmpty() ? null : Long.valueOf(seedValue);
+        if(parameters.containsKey("directory")){
+            this.directory = new File(parameters.getProperty("directory"));
+        }
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        parameters.setProperty("quadrat", String.valueOf(this.size));
+        parameters.setProperty("generations", String.valueOf(this.generations));
+        parameters.setProperty("sick", String.valueOf(this.c));
+        parameters.setProperty("empty", String.valueOf(this.empty));
+        parameters.setProperty("healthy", String.valueOf(this.healthy));
+        parameters.setProperty("storage", this.storage.name().toLowerCase());
+        parameters.setProperty("boundary", this.boundary.name());
+        if(this.seed != null){
+            parameters.setProperty("seed", String.valueOf(this.seed));
+        }
+        if(this.directory != null){
+            parameters.setProperty("directory", this.directory.getPath());
+        }
+        return parameters;
+    }
+
     @Override
     public String getName() {
         return this.name;
@@ -408,23 +654,45 @@ public class Epidemic extends Observable implements IGenerator{
         this.name = name;
     }
 
-    /**
-     * Updates the generator status and notifies all registered observer that
-     * the status has changed.
-     *
-     * @param newGeneratorStatusValue The new status for this generator
-     */
-    private void updateStatus(IGenerator.GeneratorStatusType newGeneratorStatusValue) {
-        this.generatorStatus = newGeneratorStatusValue;
-        //Notify Observers
-        setChanged();
-        notifyObservers();
-    } 
-
     @Override
     public int getGenerations() {
         return generations;
     }
 
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public int getQuadratSize() {
+        return size;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
+
     
 }
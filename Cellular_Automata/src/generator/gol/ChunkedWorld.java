@@ -0,0 +1,355 @@
+package generator.gol;
+
+import generator.CycleDetector;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Unbounded world of the Game of Life.
+ *
+ * The world is split into chunks of 64 x 64 cells which are kept in a hash map
+ * by their position. A chunk is a long per row with a bit per column, bit 0
+ * being the first column. Only chunks holding a living cell are stored, a chunk
+ * is allocated when a cell next to it comes to life and dropped again when all
+ * of its cells are dead. So memory and the time for a generation grow with the
+ * number of living cells, not with the area they are spread over.
+ *
+ * A generation is calculated 64 cells at a time: the eight neighbours of the
+ * cells of a row are shifted words of the rows above, below and of the row
+ * itself, and their number is added up bit by bit in a four bit counter,
+ * which is compared with the numbers of the LifeRule.
+ * The cells that change are XORed into the hash of the world, see
+ * CycleDetector.
+ */
+public class ChunkedWorld {
+
+    /**
+     * Number of cells per side of a chunk
+     */
+    public static final int SIZE = 64;
+
+    private static final long[] EMPTY = new long[SIZE];
+    private static final int FREE_CHUNKS = 1024; // dropped chunks kept for reuse
+
+    private HashMap<Long, long[]> chunks = new HashMap<>();
+    private final ArrayDeque<long[]> free = new ArrayDeque<>(); // arrays of dropped chunks for reuse
+    private long hash = 0; // XOR of the keys of the living cells
+    private LifeRule rule = LifeRule.LIFE;
+    private int[] births = {3}; // numbers of neighbours for which a cell is born
+    private int[] survivals = {2, 3}; // numbers of neighbours for which a cell survives
+
+    /**
+     * Sets the rule of the following generations.
+     *
+     * @param rule A rule with two states, under which no cell is born without
+     * living neighbours
+     */
+    public void setRule(LifeRule rule) {
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("An unbounded world needs a rule with two states and without B0: " + rule);
+        }
+        this.rule = rule;
+        this.births = counts(rule, true);
+        this.survivals = counts(rule, false);
+    }
+
+    /**
+     *
+     * @param rule A rule
+     * @return True if the rule has two states and no cell is born without
+     * living neighbours, which would fill the whole world
+     */
+    public static boolean supports(LifeRule rule) {
+        return rule.getStates() == 2 && !rule.isBorn(0);
+    }
+
+    /**
+     *
+     * @return The rule of the world
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    private static int[] counts(LifeRule rule, boolean births) {
+        return IntStream.rangeClosed(0, 8)
+                .filter((int count) -> births ? rule.isBorn(count) : rule.isSurviving(count))
+                .toArray();
+    }
+
+    /**
+     * Kills all cells.
+     */
+    public void clear() {
+        chunks.values().forEach(this::release);
+        chunks.clear();
+        hash = 0;
+    }
+
+    /**
+     *
+     * @param row The row of the cell
+     * @param column The column of the cell
+     * @return True if the cell is alive
+     */
+    public boolean get(int row, int column) {
+        long[] chunk = chunks.get(key(row >> 6, column >> 6));
+        return chunk != null && ((chunk[row & 63] >>> (column & 63)) & 1) != 0;
+    }
+
+    /**
+     *
+     * @param row The row of the cell
+     * @param column The column of the cell
+     * @param alive The new state of the cell
+     */
+    public void set(int row, int column, boolean alive) {
+        long key = key(row >> 6, column >> 6);
+        long[] chunk = chunks.get(key);
+        if (chunk == null) {
+            if (!alive) {
+                return;
+            }
+            chunk = allocate();
+            chunks.put(key, chunk);
+        }
+        long bit = 1L << (column & 63);
+        if (((chunk[row & 63] & bit) != 0) != alive) {
+            chunk[row & 63] ^= bit;
+            hash ^= CycleDetector.key(key(row, column));
+        }
+    }
+
+    /**
+     * Calculates the next generation.
+     */
+    public void step() {
+        //Chunks which can hold a living cell in the next generation
+        Set<Long> candidates = new HashSet<>(chunks.size() * 2);
+        for (Map.Entry<Long, long[]> entry : chunks.entrySet()) {
+            long key = entry.getKey();
+            long[] chunk = entry.getValue();
+            int chunkRow = (int) (key >> 32);
+            int chunkColumn = (int) key;
+            long first = 0;
+            long last = 0;
+            for (long row : chunk) {
+                first |= row & 1;
+                last |= row >>> 63;
+            }
+            candidates.add(key);
+            if (chunk[0] != 0) {
+                candidates.add(key(chunkRow - 1, chunkColumn));
+            }
+            if (chunk[SIZE - 1] != 0) {
+                candidates.add(key(chunkRow + 1, chunkColumn));
+            }
+            if (first != 0) {
+                candidates.add(key(chunkRow, chunkColumn - 1));
+            }
+            if (last != 0) {
+                candidates.add(key(chunkRow, chunkColumn + 1));
+            }
+            if ((chunk[0] & 1) != 0) {
+                candidates.add(key(chunkRow - 1, chunkColumn - 1));
+            }
+            if ((chunk[0] >>> 63) != 0) {
+                candidates.add(key(chunkRow - 1, chunkColumn + 1));
+            }
+            if ((chunk[SIZE - 1] & 1) != 0) {
+                candidates.add(key(chunkRow + 1, chunkColumn - 1));
+            }
+            if ((chunk[SIZE - 1] >>> 63) != 0) {
+                candidates.add(key(chunkRow + 1, chunkColumn + 1));
+            }
+        }
+
+        HashMap<Long, long[]> next = new HashMap<>(candidates.size() * 2);
+        for (long key : candidates) {
+            long[] chunk = stepChunk((int) (key >> 32), (int) key);
+            if (chunk != null) {
+                next.put(key, chunk);
+            }
+        }
+        chunks.values().forEach(this::release);
+        chunks = next;
+    }
+
+    private long[] stepChunk(int chunkRow, int chunkColumn) {
+        long[] center = chunk(chunkRow, chunkColumn);
+        long[] north = chunk(chunkRow - 1, chunkColumn);
+        long[] south = chunk(chunkRow + 1, chunkColumn);
+        long[] west = chunk(chunkRow, chunkColumn - 1);
+        long[] east = chunk(chunkRow, chunkColumn + 1);
+        long[] northWest = chunk(chunkRow - 1, chunkColumn - 1);
+        long[] northEast = chunk(chunkRow - 1, chunkColumn + 1);
+        long[] southWest = chunk(chunkRow + 1, chunkColumn - 1);
+        long[] southEast = chunk(chunkRow + 1, chunkColumn + 1);
+
+        long[] result = allocate();
+        long any = 0;
+        for (int r = 0; r < SIZE; r++) {
+            long above = (r == 0) ? north[SIZE - 1] : center[r - 1];
+            long aboveWest = (r == 0) ? northWest[SIZE - 1] : west[r - 1];
+            long aboveEast = (r == 0) ? northEast[SIZE - 1] : east[r - 1];
+            long below = (r == SIZE - 1) ? south[0] : center[r + 1];
+            long belowWest = (r == SIZE - 1) ? southWest[0] : west[r + 1];
+            long belowEast = (r == SIZE - 1) ? southEast[0] : east[r + 1];
+            long middle = center[r];
+
+            //Four bit counter of the neighbours
+            long s0 = 0;
+            long s1 = 0;
+            long s2 = 0;
+            long s3 = 0;
+            long[] neighbors = {
+                (above << 1) | (aboveWest >>> 63), above, (above >>> 1) | (aboveEast << 63),
+                (middle << 1) | (west[r] >>> 63), (middle >>> 1) | (east[r] << 63),
+                (below << 1) | (belowWest >>> 63), below, (below >>> 1) | (belowEast << 63)};
+            for (long x : neighbors) {
+                long carry0 = s0 & x;
+                s0 ^= x;
+                long carry1 = s1 & carry0;
+                s1 ^= carry0;
+                long carry2 = s2 & carry1;
+                s2 ^= carry1;
+                s3 |= carry2;
+            }
+            //Born or surviving with the numbers of neighbours of the rule
+            long born = 0;
+            for (int count : births) {
+                born |= equal(count, s0, s1, s2, s3);
+            }
+            long survive = 0;
+            for (int count : survivals) {
+                survive |= equal(count, s0, s1, s2, s3);
+            }
+            long row = (born & ~middle) | (survive & middle);
+            result[r] = row;
+            any |= row;
+            toggle(chunkRow * SIZE + r, chunkColumn * SIZE, row ^ middle);
+        }
+        if (any == 0) {
+            release(result);
+            return null;
+        }
+        return result;
+    }
+
+    // The cells whose counter is the given number
+    private static long equal(int count, long s0, long s1, long s2, long s3) {
+        return (((count & 1) != 0) ? s0 : ~s0) & (((count & 2) != 0) ? s1 : ~s1)
+                & (((count & 4) != 0) ? s2 : ~s2) & (((count & 8) != 0) ? s3 : ~s3);
+    }
+
+    // XORs the keys of the given cells of a row into the hash
+    private void toggle(int row, int firstColumn, long cells) {
+        while (cells != 0) {
+            int bit = Long.numberOfTrailingZeros(cells);
+            hash ^= CycleDetector.key(key(row, firstColumn + bit));
+            cells &= cells - 1;
+        }
+    }
+
+    /**
+     *
+     * @return The XOR of the keys of the living cells
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     *
+     * @return The number of living cells
+     */
+    public long getPopulation() {
+        long population = 0;
+        for (long[] chunk : chunks.values()) {
+            for (long row : chunk) {
+                population += Long.bitCount(row);
+            }
+        }
+        return population;
+    }
+
+    /**
+     *
+     * @return The number of chunks holding living cells
+     */
+    public int getChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Calls the consumer for every chunk holding living cells.
+     *
+     * @param consumer Receives the position and the rows of the chunk
+     */
+    public void forEachChunk(ChunkConsumer consumer) {
+        chunks.forEach((Long key, long[] rows) -> {
+            consumer.accept((int) (key >> 32), key.intValue(), rows);
+        });
+    }
+
+    /**
+     * Replaces a chunk, e.g. when a checkpoint is restored.
+     *
+     * @param chunkRow Row of the chunk, the row of its first cell divided by SIZE
+     * @param chunkColumn Column of the chunk, the column of its first cell divided by SIZE
+     * @param rows The rows of the chunk, one bit per column
+     */
+    public void putChunk(int chunkRow, int chunkColumn, long[] rows) {
+        long[] chunk = allocate();
+        System.arraycopy(rows, 0, chunk, 0, SIZE);
+        long[] previous = chunks.put(key(chunkRow, chunkColumn), chunk);
+        for (int r = 0; r < SIZE; r++) {
+            toggle(chunkRow * SIZE + r, chunkColumn * SIZE, (previous != null) ? previous[r] ^ rows[r] : rows[r]);
+        }
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    private long[] chunk(int chunkRow, int chunkColumn) {
+        long[] chunk = chunks.get(key(chunkRow, chunkColumn));
+        return (chunk != null) ? chunk : EMPTY;
+    }
+
+    private long[] allocate() {
+        long[] chunk = free.poll();
+        return (chunk != null) ? chunk : new long[SIZE];
+    }
+
+    private void release(long[] chunk) {
+        if (free.size() < FREE_CHUNKS) {
+            Arrays.fill(chunk, 0);
+            free.push(chunk);
+        }
+    }
+
+    // Position of a chunk, or of a cell, as one long
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Receives the chunks of the world.
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+
+        /**
+         *
+         * @param chunkRow Row of the chunk
+         * @param chunkColumn Column of the chunk
+         * @param rows The rows of the chunk, one bit per column
+         */
+        void accept(int chunkRow, int chunkColumn, long[] rows);
+    }
+}
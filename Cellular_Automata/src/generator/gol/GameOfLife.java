@@ -1,16 +1,38 @@
 
 package generator.gol;
 
+import generator.Boundary;
+import generator.CycleDetector;
+import generator.History;
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
 import generator.IGenerator;
+import generator.RandomFill;
+import generator.IRewindable;
+import generator.IStatusListener;
+import generator.InitializeEvent;
+import generator.RenderEvent;
+import generator.Snapshot;
+import generator.StepEvent;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.Observable;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -18,27 +40,33 @@ import javax.swing.JSpinner;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
 import services.IBufferedImageSaveService;
+import services.ImageZoom;
 
 /**Implementation of a Game of Life as a generator.
  * This cellular automaton has been modelled as a two dimensional array.
  * The following configuration has been used:
- *      - the edges are fixed,
+ *      - the edges are fixed, toroidal or reflective (see Boundary), or the
+ *        world is unbounded: cells outside of the image keep living in a
+ *        ChunkedWorld and only the part starting at row and column 0 is drawn,
  *      - the game starts with randomly distributed living cells,
  *      - von Moore neighborhood has been used.
  *      - the user can choose the width/height of the image as well as
  *        the size of the quadrants which will be drawn.
  *      The following game parameters are choosable:
  *      - the percentage of the living cells at the beginning,
+ *      - the rule in B/S notation (see LifeRule), B3/S23 by default,
  *      - the number of generations.
+ * Once the grid is a still life or repeats a cycle, the run skips to the last
+ * generation and reports the status STABLE, unless cycles=run.
  */
-public class GameOfLife extends Observable implements IGenerator{
+public class GameOfLife implements IGenerator, IRewindable{
     
     private int height = 600;
     private int width = 600;
     private int size = 10; // size of the quadrat in pixels
     
     private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
-    private GeneratorStatusType generatorStatus;
+    private final GeneratorChannels channels = new GeneratorChannels(this);
     private final IBufferedImageSaveService saveService;
     private String name = "GameOfLifeGenerator";
     
@@ -46,10 +74,24 @@ public class GameOfLife extends Observable implements IGenerator{
     private int currentGeneration = 0;
     
     private double alive = 0.5; // Living cells ratio at the beginning
+    private boolean unbounded = false; // cells leaving the image keep living in the chunked world
+    private Boundary boundary = Boundary.FIXED;
+    private LifeRule rule = LifeRule.LIFE;
+    private final ChunkedWorld world = new ChunkedWorld();
+    private static final int CHUNK_COLUMNS = 64 + ChunkedWorld.SIZE*ChunkedWorld.SIZE; // checkpoint row of a chunk
     
     private int rows;
     private int columns;
+    // The cells with a ghost row and column at each edge, cell (i, j) is cells[i+1][j+1]
     private int [][] cells;
+    private int [][] next; // buffer for the next generation, reused between generations and runs
+    private boolean restored = false; // the next reset keeps the grid of a restored checkpoint
+    private History history; // records the generations for rewinding, null if not recording
+    private long hash; // XOR of the keys of the living cells of the bounded grid, see CycleDetector
+    private final CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_PERIODS);
+    private boolean skipCycles = true; // skip to the last generation once the grid repeats itself
+    private Long seed = null; // seed of the start configuration, null for a new one every run
+    private RandomFill random; // random numbers of the current run
     
     /**
      * Constructor
@@ -73,108 +115,310 @@ public class GameOfLife extends Observable implements IGenerator{
 
     @Override
     public BufferedImage initialize() {
-        updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+        reset();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+    
+    @Override
+    public BufferedImage generate(){
+        step();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public synchronized void reset() {
+        channels.updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        InitializeEvent event = new InitializeEvent();
+        event.begin();
+        if(restored){
+            restored = false;
+            record();
+            watchCycles();
+            channels.getMetrics().recordPopulation(getStatistics().get("alive"));
+            event.commit(name, currentGeneration, rows, columns);
+            return;
+        }
         
         // STARTCONFIGURATION
         rows = (int)this.height/size;
         columns = (int)this.width/size;
-        cells = new int[rows][columns];
+        // Keep the buffers of the last run if the dimensions did not change
+        if(cells == null || cells.length != rows + 2 || cells[0].length != columns + 2){
+            cells = new int[rows + 2][columns + 2];
+            next = new int[rows + 2][columns + 2];
+        }
         
         // Fill randomly with zeros and ones
-        for(int i = 0; i < rows; i++){
-            for(int j = 0; j < columns; j++){
-                int number =(Math.random() < (1.0 - alive))?0:1; 
-                cells[i][j] = number;
-            } 
+        random = new RandomFill((seed != null) ? seed : new SplittableRandom().nextLong());
+        random.fill(rows, (int row, SplittableRandom rowRandom)
+                -> RandomFill.fill(cells[row+1], 1, columns + 1, rowRandom, alive));
+        world.clear();
+        if(unbounded){
+            world.setRule(rule);
+            for(int i = 0; i < rows; i++){
+                for(int j = 0; j < columns; j++){
+                    world.set(i, j, cells[i+1][j+1] == 1);
+                } 
+            }
         }
         currentGeneration = 1;
-        
-        // DRAW IMAGE
-        Graphics2D g2d = image.createGraphics();
-        for(int k = 0; k < cells.length; k++){
-            int x = k*size;
-            for(int l = 0; l < cells[k].length; l++){
-                int y = l*size;
-                if(cells[k][l] == 1){
-                    // Paint a black rectangle to visualize an alive cell.
-                    g2d.setColor(Color.BLACK);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+        record();
+        watchCycles();
+        channels.getMetrics().recordPopulation(getStatistics().get("alive"));
+        event.commit(name, currentGeneration, rows, columns);
+    }
+
+    @Override
+    public synchronized void step(){
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        long start = System.nanoTime();
+        StepEvent event = new StepEvent();
+        event.begin();
+        advance();
+        channels.getMetrics().recordStep(System.nanoTime() - start, unbounded ? (long)world.getChunks()*ChunkedWorld.SIZE*ChunkedWorld.SIZE : (long)rows*columns);
+        event.commit(name, currentGeneration + 1, rows, columns, this::changedCells);
+        if(currentGeneration < generations - 1){
+              currentGeneration++;
+              record();
+              if(skipCycles && skipCycle()){
+                  return;
+              }
+        }
+        if(currentGeneration == generations - 1){
+            channels.updateStatus(GeneratorStatusType.FINISHED);
+        }
+    }
+
+    // Cells that changed with the last step, next holds the previous generation
+    private long changedCells(){
+        if(unbounded){
+            return -1;
+        }
+        long changed = 0;
+        for(int x = 1; x <= rows; x++){
+            for(int y = 1; y <= columns; y++){
+                if(cells[x][y] != next[x][y]){
+                    changed++;
                 }
-                else { // Paint a white rectangle to visualize a dead cell.
-                    g2d.setColor(Color.WHITE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                }  
-                
             }
         }
-        g2d.dispose();
-        return image;    
+        return changed;
     }
-    
-    @Override
-    public BufferedImage generate(){
-        updateStatus(GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
 
+    // Calculates the next generation
+    private void advance(){
         // ALGORITHM -> Game of Life
         //int  g = currentGeneration;
-        int[][] next = new int[rows][columns];
-        for(int x = 1; x < rows - 1; x++){
-            for(int y = 1; y < columns - 1; y++){
-                int neighbors = 0;
-                for (int i = -1; i <= 1; i++) {
-                    for (int j = -1; j <= 1; j++) {
-                        neighbors += cells[x+i][y+j];
+        if(unbounded){
+            world.step();
+            channels.getMetrics().recordPopulation(world.getPopulation());
+        }
+        else {
+            if(boundary == Boundary.FIXED){
+                // The fixed edges of the next generation are dead
+                for(int x = 1; x <= rows; x++){
+                    kill(x, 1);
+                    if(columns > 1) kill(x, columns);
+                }
+                for(int y = 2; y < columns; y++){
+                    kill(1, y);
+                    if(rows > 1) kill(rows, y);
+                }
+            }
+            boundary.pad(cells);
+            int first = boundary.first();
+            int[] table = rule.getTable();
+            int[] alive = rule.getAlive();
+            long living = 0;
+            for(int x = 1 + first; x <= rows - first; x++){
+                for(int y = 1 + first; y <= columns - first; y++){
+                    int neighbors = 0;
+                    for (int i = -1; i <= 1; i++) {
+                        for (int j = -1; j <= 1; j++) {
+                            neighbors += alive[cells[x+i][y+j]];
+                        }
+                    }   
+                    neighbors -= alive[cells[x][y]];
+                    next[x][y] = table[cells[x][y]*9 + neighbors];
+                    living += alive[next[x][y]];
+                    if(next[x][y] != cells[x][y]){
+                        hash ^= key(x, y, cells[x][y]) ^ key(x, y, next[x][y]);
                     }
-                }   
-                neighbors -= cells[x][y];
-                if      ((cells[x][y] == 1) && (neighbors <  2)) next[x][y] = 0;
-                else if ((cells[x][y] == 1) && (neighbors >  3)) next[x][y] = 0;
-                else if ((cells[x][y] == 0) && (neighbors == 3)) next[x][y] = 1;
-                else next[x][y] = cells[x][y];     
-            } 
-        }
-        cells = next;
-        if(currentGeneration < generations - 1){
-              currentGeneration++;
+                } 
+            }
+            int[][] previous = cells;
+            cells = next;
+            next = previous;
+            channels.getMetrics().recordPopulation(living);
         }
-        
-        // DRAW IMAGE
-        Graphics2D g2d = image.createGraphics();
-        for(int k = 0; k < cells.length; k++){
-            int x = k*size;
-            for(int l = 0; l < cells[k].length; l++){
-                int y = l*size;
-                if(cells[k][l] == 1){
-                    // Paint a black rectangle to visualize an alive cell.
-                    g2d.setColor(Color.BLACK);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+    }
+
+    // A cell at a fixed edge is dead in the next generation
+    private void kill(int x, int y){
+        hash ^= key(x, y, cells[x][y]);
+        next[x][y] = 0;
+    }
+
+    // The key of a cell in a state, 0 for a dead one, see CycleDetector
+    private static long key(int x, int y, int state){
+        return (state == 0) ? 0 : CycleDetector.key((((long)x << 32) | y) + (state - 1)*0x632BE59BD9B4E019L);
+    }
+
+    // Starts looking for cycles with the current generation
+    private void watchCycles(){
+        hash = 0;
+        if(!unbounded){
+            for(int x = 1; x <= rows; x++){
+                for(int y = 1; y <= columns; y++){
+                    hash ^= key(x, y, cells[x][y]);
                 }
-                else { // Paint a white rectangle to visualize a dead cell.
-                    g2d.setColor(Color.WHITE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                }  
             }
         }
-            
-        g2d.dispose(); 
-        if(currentGeneration == generations - 1){
-            updateStatus(GeneratorStatusType.FINISHED);
+        cycles.clear();
+        cycles.add(currentGeneration, unbounded ? world.getHash() : hash);
+    }
+
+    // Skips to the last generation if the current one repeats an earlier one
+    private boolean skipCycle(){
+        int period = cycles.add(currentGeneration, unbounded ? world.getHash() : hash);
+        if(period == 0 || currentGeneration == generations - 1){
+            return false;
+        }
+        // The remaining generations repeat the cycle, so the last one is the
+        // generation that is the rest of their division by the period ahead
+        for(int i = (generations - 1 - currentGeneration) % period; i > 0; i--){
+            advance();
+        }
+        currentGeneration = generations - 1;
+        if(history != null){
+            // The skipped generations are taken from the recorded cycle
+            history.repeat(period, currentGeneration);
         }
+        channels.updateStatus(GeneratorStatusType.STABLE);
+        return true;
+    }
+
+    @Override
+    public BufferedImage render(){
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        BufferedImage image = render(visibleCells());
+        event.commit(name, currentGeneration, rows, columns);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
         return image;
     }
+
+    // The cells of the image, copied from the world if it is unbounded
+    private int[][] visibleCells(){
+        if(unbounded){
+            for(int i = 0; i < rows; i++){
+                for(int j = 0; j < columns; j++){
+                    cells[i+1][j+1] = world.get(i, j) ? 1 : 0;
+                }
+            }
+        }
+        return cells;
+    }
+
+    // Draws a grid with ghost cells, which are left out, a pixel per cell
+    private BufferedImage render(int[][] cells){
+        int rows = cells.length - 2;
+        int columns = cells[0].length - 2;
+        BufferedImage image = new BufferedImage(Math.max(1, rows), Math.max(1, columns), BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+
+        // Dead cells are white, alive ones black and dying ones get lighter
+        int[] colors = new int[rule.getStates()];
+        colors[0] = Color.WHITE.getRGB();
+        colors[1] = Color.BLACK.getRGB();
+        for(int state = 2; state < colors.length; state++){
+            int gray = 255*(state - 1)/(colors.length - 1);
+            colors[state] = new Color(gray, gray, gray).getRGB();
+        }
+
+        // DRAW IMAGE: row k of the grid is the column x = k of the image
+        for(int k = 0; k < rows; k++){
+            for(int l = 0; l < columns; l++){
+                pixels[l*rows + k] = colors[cells[k+1][l+1]];
+            }
+        }
+        return image;
+    }
+
+    private void record(){
+        if(history != null){
+            int[][] visible = visibleCells();
+            history.record(currentGeneration, rows, columns, (int row, int column) -> visible[row+1][column+1]);
+        }
+    }
+
+    @Override
+    public void setHistory(History history) {
+        this.history = history;
+    }
+
+    @Override
+    public History getHistory() {
+        return history;
+    }
+
+    @Override
+    public BufferedImage renderGeneration(int generation) {
+        History current = history;
+        if(current == null){
+            throw new IllegalArgumentException("Generation " + generation + " has not been recorded");
+        }
+        int[] recorded;
+        int[][] grid;
+        synchronized(current){
+            recorded = current.seek(generation);
+            grid = new int[current.getRows() + 2][current.getColumns() + 2];
+        }
+        int length = grid[0].length - 2;
+        for(int k = 0; k < grid.length - 2; k++){
+            System.arraycopy(recorded, k*length, grid[k+1], 1, length);
+        }
+        return render(grid);
+    }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        if(unbounded){
+            Map<String, Long> statistics = new LinkedHashMap<>();
+            statistics.put("alive", world.getPopulation());
+            statistics.put("chunks", (long)world.getChunks());
+            return statistics;
+        }
+        long living = 0;
+        long dying = 0;
+        for(int k = 0; k < rows; k++){
+            for(int l = 0; l < columns; l++){
+                int state = cells[k+1][l+1];
+                if(state == 1) living++;
+                else if(state > 1) dying++;
+            }
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("alive", living);
+        if(rule.getStates() > 2){
+            statistics.put("dying", dying);
+        }
+        statistics.put("dead", (long)rows*columns - living - dying);
+        return statistics;
+    }
     
      @Override
     public void save() {
-        updateStatus(GeneratorStatusType.SAVE);
-        this.saveService.saveBufferedImage("new", this.generate());
-        updateStatus(GeneratorStatusType.FINISHED);
+        channels.updateStatus(GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", ImageZoom.zoom(this.render(), size), channels.getMetrics()::recordSave);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
     }
 
     @Override
     public String getStatus() {
-        return this.generatorStatus.toString();
+        return channels.getStatus().toString();
     }
     
        private void showDialog() {
@@ -192,6 +436,12 @@ public class GameOfLife extends Observable implements IGenerator{
         
         JSpinner generationSpinner = new JSpinner(generationModel);
         JSpinner aliveSpinner = new JSpinner(aliveModel);
+        JCheckBox unboundedCheckBox = new JCheckBox("Unbounded world", this.unbounded);
+        JCheckBox skipCheckBox = new JCheckBox("Stop at still lifes and cycles", this.skipCycles);
+        JComboBox<Boundary> boundaryCombo = new JComboBox<>(Boundary.values());
+        JComboBox<String> ruleCombo = new JComboBox<>(LifeRule.getNames());
+        ruleCombo.setEditable(true);
+        ruleCombo.setSelectedItem(this.rule.toString());
         
         JButton generateButton = new JButton("Generate");
         JButton cancelButton = new JButton("Cancel");
@@ -211,6 +461,12 @@ public class GameOfLife extends Observable implements IGenerator{
                     new JLabel("Alive cells at the start:"),
                     aliveSpinner,
                     new JLabel(" in %."),
+                    new JLabel("Boundary:"),
+                    boundaryCombo,
+                    new JLabel("Rule (B/S/C):"),
+                    ruleCombo,
+                    unboundedCheckBox,
+                    skipCheckBox,
                     // here some more parameter Spinners, JComboBoxes
                     generateButton,
                     cancelButton},
@@ -223,7 +479,7 @@ public class GameOfLife extends Observable implements IGenerator{
             public void windowClosing(WindowEvent e) {
                 setupDialog.dispose();
                 setupDialogIsOpen = false;
-                updateStatus(GeneratorStatusType.UNCONFIGURED);
+                channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
             }
         });
 
@@ -231,20 +487,34 @@ public class GameOfLife extends Observable implements IGenerator{
         cancelButton.addActionListener((ActionEvent e) -> {
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.UNCONFIGURED);
+            channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
         });
 
         generateButton.addActionListener((ActionEvent e) -> {
+            LifeRule selectedRule;
+            try {
+                selectedRule = LifeRule.parse(String.valueOf(ruleCombo.getSelectedItem()));
+                if(unboundedCheckBox.isSelected() && !ChunkedWorld.supports(selectedRule)){
+                    throw new IllegalArgumentException("An unbounded world needs a rule with two states and without B0");
+                }
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(setupDialog, ex.getMessage(), "Rule", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            this.rule = selectedRule;
             this.width = (int) widthHeightSpinner.getValue();
             this.height = (int) widthHeightSpinner.getValue();
             this.size = (int)sizeSpinner.getValue();
             
             this.generations = (int) generationSpinner.getValue();
             this.alive = ((double)aliveSpinner.getValue())/100.0;
+            this.unbounded = unboundedCheckBox.isSelected();
+            this.skipCycles = skipCheckBox.isSelected();
+            this.boundary = (Boundary)boundaryCombo.getSelectedItem();
             
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.READY);
+            channels.updateStatus(GeneratorStatusType.READY);
         });
 
         setupDialog.setModal(false);
@@ -255,11 +525,128 @@ public class GameOfLife extends Observable implements IGenerator{
     @Override
     public void setup() {
         if (!setupDialogIsOpen) {
-            updateStatus(GeneratorStatusType.SETUP);
+            channels.updateStatus(GeneratorStatusType.SETUP);
             showDialog();
         }
     }
 
+    @Override
+    public synchronized void checkpoint(String filename) throws IOException {
+        if(random == null){
+            throw new IllegalStateException("There is no run to write a checkpoint of");
+        }
+        if(unbounded){
+            // A row per chunk: 32 bits of its row, 32 bits of its column and its cells
+            int[] positions = new int[2*world.getChunks()];
+            long[][] chunks = new long[world.getChunks()][];
+            int[] count = {0};
+            world.forEachChunk((int chunkRow, int chunkColumn, long[] chunk) -> {
+                positions[2*count[0]] = chunkRow;
+                positions[2*count[0] + 1] = chunkColumn;
+                chunks[count[0]++] = chunk;
+            });
+            new Snapshot(this, random.getSeed(), chunks.length, CHUNK_COLUMNS)
+                    .addPlane(1, (int row, int column) -> (column < 64)
+                            ? (positions[2*row + column/32] >>> (column & 31)) & 1
+                            : (int)(chunks[row][(column - 64) >> 6] >>> (column & 63)) & 1)
+                    .write(new File(filename));
+            return;
+        }
+        new Snapshot(this, random.getSeed(), rows, columns)
+                .addPlane(Snapshot.bitsFor(rule.getStates() - 1), (int row, int column) -> cells[row+1][column+1])
+                .write(new File(filename));
+    }
+
+    @Override
+    public synchronized void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 1);
+        applyParameters(snapshot.getParameters());
+        if(unbounded ? snapshot.getColumns() != CHUNK_COLUMNS
+                : snapshot.getRows() != this.height/size || snapshot.getColumns() != this.width/size){
+            throw new IOException("The grid of the snapshot does not match its parameters");
+        }
+        rows = (int)this.height/size;
+        columns = (int)this.width/size;
+        if(cells == null || cells.length != rows + 2 || cells[0].length != columns + 2){
+            cells = new int[rows + 2][columns + 2];
+            next = new int[rows + 2][columns + 2];
+        }
+        world.clear();
+        if(unbounded){
+            int[] positions = new int[2*snapshot.getRows()];
+            long[][] chunks = new long[snapshot.getRows()][ChunkedWorld.SIZE];
+            snapshot.readPlane(0, (int row, int column, int value) -> {
+                if(column < 64){
+                    positions[2*row + column/32] |= value << (column & 31);
+                }
+                else {
+                    chunks[row][(column - 64) >> 6] |= (long)value << (column & 63);
+                }
+            });
+            for(int c = 0; c < chunks.length; c++){
+                world.putChunk(positions[2*c], positions[2*c + 1], chunks[c]);
+            }
+        }
+        else {
+            snapshot.readPlane(0, (int row, int column, int value) -> cells[row+1][column+1] = value);
+        }
+        currentGeneration = snapshot.getGeneration();
+        random = new RandomFill(snapshot.getSeed());
+        restored = true;
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        applyParameters(parameters);
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    private void applyParameters(Properties parameters) {
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        this.size = Integer.parseInt(parameters.getProperty("quadrat", String.valueOf(this.size)));
+        
+        this.generations = Integer.parseInt(parameters.getProperty("generations", String.valueOf(this.generations)));
+        this.alive = Double.parseDouble(parameters.getProperty("alive", String.valueOf(this.alive)));
+        String bounds = parameters.getProperty("world", this.unbounded ? "unbounded" : "bounded");
+        if(!bounds.equals("bounded") && !bounds.equals("unbounded")){
+            throw new IllegalArgumentException("Unknown world: " + bounds);
+        }
+        this.unbounded = bounds.equals("unbounded");
+        this.boundary = Boundary.parse(parameters.getProperty("boundary", this.boundary.name()));
+        this.rule = LifeRule.parse(parameters.getProperty("rule", this.rule.toString()));
+        if(this.unbounded){
+            world.setRule(this.rule);
+        }
+        String repeat = parameters.getProperty("cycles", this.skipCycles ? "skip" : "run");
+        if(!repeat.equals("skip") && !repeat.equals("run")){
+            throw new IllegalArgumentException("Unknown cycles: " + repeat);
+        }
+        this.skipCycles = repeat.equals("skip");
+        String seedValue = parameters.getProperty("seed", (this.seed != null) ? String.valueOf(this.seed) : "");
+        this.seed = seedValue.isEmpty() ? null : Long.valueOf(seedValue);
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        parameters.setProperty("quadrat", String.valueOf(this.size));
+        parameters.setProperty("generations", String.valueOf(this.generations));
+        parameters.setProperty("alive", String.valueOf(this.alive));
+        parameters.setProperty("world", this.unbounded ? "unbounded" : "bounded");
+        parameters.setProperty("boundary", this.boundary.name());
+        parameters.setProperty("rule", this.rule.toString());
+        parameters.setProperty("cycles", this.skipCycles ? "skip" : "run");
+        if(this.seed != null){
+            parameters.setProperty("seed", String.valueOf(this.seed));
+        }
+        return parameters;
+    }
+
     @Override
     public String getName() {
         return this.name;
@@ -270,22 +657,44 @@ public class GameOfLife extends Observable implements IGenerator{
         this.name = name;
     }
 
-    /**
-     * Updates the generator status and notifies all registered observer that
-     * the status has changed.
-     *
-     * @param newGeneratorStatusValue The new status for this generator
-     */
-    private void updateStatus(GeneratorStatusType newGeneratorStatusValue) {
-        this.generatorStatus = newGeneratorStatusValue;
-        //Notify Observers
-        setChanged();
-        notifyObservers();
-    }
-
     @Override
     public int getGenerations() {
         return generations;
     }
+
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public int getQuadratSize() {
+        return size;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
    
 }
@@ -0,0 +1,190 @@
+package generator.gol;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An outer-totalistic rule of a life-like cellular automaton.
+ *
+ * A rule is written in B/S notation: the numbers of living neighbours for
+ * which a dead cell is born and a living one survives, e.g. B3/S23 for the
+ * Game of Life. A "Generations" rule adds the number of states, e.g.
+ * B2/S/C3 for Brian's Brain: a living cell that does not survive is dying for
+ * the states after 1 instead of dead, and only the living cells count as
+ * neighbours. The numbers without letters are read as S/B/C, as in 23/3.
+ *
+ * The rule is compiled into a table of the next state, indexed by the state
+ * of a cell times 9 plus its number of living neighbours, so a generation
+ * takes the same steps whatever the rule is.
+ */
+public class LifeRule {
+
+    /**
+     * The rule of Conway's Game of Life
+     */
+    public static final LifeRule LIFE = new LifeRule(1 << 3, (1 << 2) | (1 << 3), 2);
+
+    private static final Map<String, String> NAMES = new LinkedHashMap<>();
+
+    static {
+        NAMES.put("Life", "B3/S23");
+        NAMES.put("HighLife", "B36/S23");
+        NAMES.put("DayAndNight", "B3678/S34678");
+        NAMES.put("Seeds", "B2/S");
+        NAMES.put("LifeWithoutDeath", "B3/S012345678");
+        NAMES.put("Maze", "B3/S12345");
+        NAMES.put("BriansBrain", "B2/S/C3");
+        NAMES.put("StarWars", "B2/S345/C4");
+    }
+
+    private final int births; // bit n is set if a dead cell with n living neighbours is born
+    private final int survivals; // bit n is set if a living cell with n living neighbours survives
+    private final int states;
+    private final int[] table; // the next state of a cell at state*9 + living neighbours
+    private final int[] alive; // 1 for the living state, 0 for the others
+
+    private LifeRule(int births, int survivals, int states) {
+        this.births = births;
+        this.survivals = survivals;
+        this.states = states;
+        this.table = new int[states * 9];
+        this.alive = new int[states];
+        alive[1] = 1;
+        for (int count = 0; count <= 8; count++) {
+            table[count] = isBorn(count) ? 1 : 0;
+            table[9 + count] = isSurviving(count) ? 1 : 2 % states;
+            for (int state = 2; state < states; state++) {
+                table[state * 9 + count] = (state + 1) % states;
+            }
+        }
+    }
+
+    /**
+     *
+     * @param value A rule in B/S or S/B notation, optionally with the number
+     * of states, or one of the names of getNames
+     * @return The rule
+     */
+    public static LifeRule parse(String value) {
+        String rule = value.trim();
+        for (Map.Entry<String, String> name : NAMES.entrySet()) {
+            if (simplify(name.getKey()).equals(simplify(rule))) {
+                rule = name.getValue();
+            }
+        }
+        String[] parts = rule.toUpperCase(Locale.ROOT).split("/", -1);
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Unknown rule: " + value);
+        }
+        int births = -1;
+        int survivals = -1;
+        int states = 2;
+        for (int p = 0; p < parts.length; p++) {
+            String part = parts[p];
+            boolean named = !part.isEmpty() && Character.isLetter(part.charAt(0));
+            char kind = named ? part.charAt(0) : "SBC".charAt(p);
+            String digits = named ? part.substring(1) : part;
+            if (kind == 'B' && births < 0) {
+                births = counts(digits, value);
+            } else if (kind == 'S' && survivals < 0) {
+                survivals = counts(digits, value);
+            } else if ((kind == 'C' || kind == 'G') && p == 2 && digits.matches("\\d{1,3}")) {
+                states = Integer.parseInt(digits);
+            } else {
+                throw new IllegalArgumentException("Unknown rule: " + value);
+            }
+        }
+        if (births < 0 || survivals < 0 || states < 2 || states > 256) {
+            throw new IllegalArgumentException("Unknown rule: " + value);
+        }
+        return new LifeRule(births, survivals, states);
+    }
+
+    // The letters of a name without "and", so Day & Night is DayAndNight
+    private static String simplify(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z]|and", "");
+    }
+
+    private static int counts(String digits, String value) {
+        int counts = 0;
+        for (char digit : digits.toCharArray()) {
+            if (digit < '0' || digit > '8') {
+                throw new IllegalArgumentException("Unknown rule: " + value);
+            }
+            counts |= 1 << (digit - '0');
+        }
+        return counts;
+    }
+
+    /**
+     *
+     * @return The names of the known rules
+     */
+    public static String[] getNames() {
+        return NAMES.keySet().toArray(new String[0]);
+    }
+
+    /**
+     *
+     * @param count Number of living neighbours
+     * @return True if a dead cell with that many living neighbours is born
+     */
+    public boolean isBorn(int count) {
+        return ((births >>> count) & 1) != 0;
+    }
+
+    /**
+     *
+     * @param count Number of living neighbours
+     * @return True if a living cell with that many living neighbours survives
+     */
+    public boolean isSurviving(int count) {
+        return ((survivals >>> count) & 1) != 0;
+    }
+
+    /**
+     *
+     * @return The number of states: dead, alive and the dying states between
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     *
+     * @return The next state of a cell at state*9 + living neighbours
+     */
+    int[] getTable() {
+        return table;
+    }
+
+    /**
+     *
+     * @return 1 for the living state and 0 for the others, so that adding it
+     * up over the neighbours counts the living ones
+     */
+    int[] getAlive() {
+        return alive;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("B");
+        for (int count = 0; count <= 8; count++) {
+            if (isBorn(count)) {
+                rule.append(count);
+            }
+        }
+        rule.append("/S");
+        for (int count = 0; count <= 8; count++) {
+            if (isSurviving(count)) {
+                rule.append(count);
+            }
+        }
+        if (states > 2) {
+            rule.append("/C").append(states);
+        }
+        return rule.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package generator.lenia;
+
+/**
+ * Fast Fourier transform of complex numbers of a length that is a power of
+ * two, radix 2 and in place.
+ *
+ * The twiddle factors and the bit reversal permutation are computed once per
+ * length, so a transform only reads tables. The inverse transform is not
+ * divided by the length, the caller scales the result.
+ */
+public class Fft {
+
+    private final int length;
+    private final int[] reversed; // index of every element after the bit reversal
+    private final float[] cos; // cos(2 pi k / length) for k < length/2
+    private final float[] sin; // sin(2 pi k / length) for k < length/2
+
+    /**
+     * Constructor
+     *
+     * @param length Number of complex numbers of a transform, a power of two
+     */
+    public Fft(int length) {
+        if (length < 1 || Integer.bitCount(length) != 1) {
+            throw new IllegalArgumentException("The length must be a power of two: " + length);
+        }
+        this.length = length;
+        this.reversed = new int[length];
+        int bits = Integer.numberOfTrailingZeros(length);
+        for (int i = 0; i < length; i++) {
+            reversed[i] = (bits == 0) ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+        this.cos = new float[Math.max(1, length / 2)];
+        this.sin = new float[Math.max(1, length / 2)];
+        for (int k = 0; k < length / 2; k++) {
+            double angle = 2.0 * Math.PI * k / length;
+            cos[k] = (float) Math.cos(angle);
+            sin[k] = (float) Math.sin(angle);
+        }
+    }
+
+    /**
+     *
+     * @return Number of complex numbers of a transform
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Transforms length complex numbers stored one after another.
+     *
+     * @param re The real parts
+     * @param im The imaginary parts
+     * @param offset Index of the first number
+     * @param inverse True for the inverse transform, without dividing by the
+     * length
+     */
+    public void transform(float[] re, float[] im, int offset, boolean inverse) {
+        for (int i = 0; i < length; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                float t = re[offset + i];
+                re[offset + i] = re[offset + j];
+                re[offset + j] = t;
+                t = im[offset + i];
+                im[offset + i] = im[offset + j];
+                im[offset + j] = t;
+            }
+        }
+        float sign = inverse ? 1.0f : -1.0f;
+        for (int half = 1; half < length; half <<= 1) {
+            int step = length / (2 * half); // of the twiddle factors
+            for (int start = offset; start < offset + length; start += 2 * half) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sign * sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float xr = re[b] * wr - im[b] * wi;
+                    float xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,781 @@
+package generator.lenia;
+
+import generator.Boundary;
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
+import generator.IGenerator;
+import generator.IStatusListener;
+import generator.InitializeEvent;
+import generator.RandomFill;
+import generator.RenderEvent;
+import generator.Snapshot;
+import generator.StepEvent;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerModel;
+import javax.swing.SpinnerNumberModel;
+import services.IBufferedImageSaveService;
+import services.ImageZoom;
+
+/**Implementation of Lenia, a cellular automaton with continuous states, as a
+ * generator.
+ * Every cell holds a value from 0 to 1. A step convolves the grid with a
+ * smooth ring-shaped kernel of radius R and adds the growth of the result,
+ * times the time step, to every cell:
+ *      - the kernel is made of rings ("peaks"), each with the bump
+ *        exp(4 - 1/(r(1-r))) over its width and the height of its peak,
+ *        and adds up to 1,
+ *      - the growth of a convolution u is 2 exp(-(u-mu)^2 / (2 sigma^2)) - 1,
+ *      - the edges are fixed, toroidal or reflective (see Boundary), the
+ *        cells outside of a fixed grid are 0,
+ *      - the game starts with randomly distributed cells of random values.
+ *      The defaults are the parameters of Orbium: R = 13, one peak,
+ *      mu = 0.15, sigma = 0.015 and a time step of 0.1.
+ * The convolution is a product in frequency space: the grid is copied into a
+ * plane whose sides are powers of two, with R ghost cells beyond each edge
+ * unless the grid is toroidal with sides that are powers of two already,
+ * and transformed with Fft. The spectrum of the kernel is kept as long as the
+ * plane and the kernel stay the same. As the grid is real, every transform of
+ * a row handles two rows. The rows and blocks of columns are transformed in
+ * parallel, every thread with its own buffer for a block.
+ */
+public class Lenia implements IGenerator{
+
+    private int height = 512;
+    private int width = 512;
+    private int size = 2; // size of the quadrat in pixels
+    private static final int TILE = 64; // lines of the image drawn together, see render
+
+    private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
+    private final GeneratorChannels channels = new GeneratorChannels(this);
+    private final IBufferedImageSaveService saveService;
+    private String name = "LeniaGenerator";
+
+    private int generations = 100;
+    private int currentGeneration = 0;
+
+    private double alive = 0.5; // ratio of the cells with a value at the beginning
+    private Boundary boundary = Boundary.TOROIDAL;
+    private int radius = 13; // radius of the kernel in cells
+    private double[] peaks = {1.0}; // heights of the rings of the kernel, from the inside out
+    private double mu = 0.15; // convolution with the largest growth
+    private double sigma = 0.015; // width of the growth function
+    private double dt = 0.1; // time step
+
+    private int rows;
+    private int columns;
+    private float [] cells; // cell (i, j) is cells[i*columns + j]
+    private final LongAdder changes = new LongAdder(); // cells changed by the last step
+    // The plane of the convolution, planeRows x planeColumns complex numbers
+    private int planeRows;
+    private int planeColumns;
+    private float [] re;
+    private float [] im;
+    private Fft rowFft;
+    private Fft columnFft;
+    private float [] spectrum; // of the kernel, real as the kernel is symmetric, divided by the size of the plane
+    private String spectrumKey; // plane and kernel the spectrum was computed for
+    private static final int COLUMN_BLOCK = 8; // columns of the plane transformed together, see advance
+    private final ThreadLocal<float[][]> columnBuffers = ThreadLocal.withInitial(() -> new float[2][0]);
+    private boolean restored = false; // the next reset keeps the grid of a restored checkpoint
+    private Long seed = null; // seed of the start configuration, null for a new one every run
+    private RandomFill random; // random numbers of the current run
+
+    /**
+     * Constructor
+     *
+     * @param saveService Inject IBufferedImageService
+     */
+    public Lenia(IBufferedImageSaveService saveService) {
+        this.saveService = saveService;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param saveService Inject IBufferedImageService
+     * @param name Name for this generator
+     */
+    public Lenia(IBufferedImageSaveService saveService, String name) {
+        this.saveService = saveService;
+        this.name = name;
+    }
+
+    @Override
+    public BufferedImage initialize() {
+        reset();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public BufferedImage generate(){
+        step();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public synchronized void reset() {
+        channels.updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        InitializeEvent event = new InitializeEvent();
+        event.begin();
+        if(restored){
+            restored = false;
+            channels.getMetrics().recordPopulation(getStatistics().get("alive"));
+            event.commit(name, currentGeneration, rows, columns);
+            return;
+        }
+
+        // STARTCONFIGURATION
+        rows = (int)this.height/size;
+        columns = (int)this.width/size;
+        allocate();
+
+        // Fill randomly with zeros and values from 0 to 1
+        random = new RandomFill((seed != null) ? seed : new SplittableRandom().nextLong());
+        random.fill(rows, (int row, SplittableRandom rowRandom) -> {
+            for(int j = 0; j < columns; j++){
+                cells[row*columns + j] = (rowRandom.nextDouble() < alive) ? (float)rowRandom.nextDouble() : 0.0f;
+            }
+        });
+        currentGeneration = 1;
+        channels.getMetrics().recordPopulation(getStatistics().get("alive"));
+        event.commit(name, currentGeneration, rows, columns);
+    }
+
+    // Keeps the buffers of the last run if the dimensions did not change
+    private void allocate(){
+        if(cells == null || cells.length != rows*columns){
+            cells = new float[rows*columns];
+        }
+        planeRows = planeSize(rows);
+        planeColumns = planeSize(columns);
+        if(re == null || re.length != planeRows*planeColumns){
+            re = new float[planeRows*planeColumns];
+            im = new float[planeRows*planeColumns];
+        }
+        if(rowFft == null || rowFft.getLength() != planeColumns){
+            rowFft = new Fft(planeColumns);
+        }
+        if(columnFft == null || columnFft.getLength() != planeRows){
+            columnFft = new Fft(planeRows);
+        }
+        String key = planeRows + "x" + planeColumns + " R" + radius + " " + Arrays.toString(peaks);
+        if(!key.equals(spectrumKey)){
+            spectrum = kernelSpectrum();
+            spectrumKey = key;
+        }
+    }
+
+    // The side of the plane for a side of the grid
+    private int planeSize(int cells){
+        if(boundary == Boundary.TOROIDAL && Integer.bitCount(cells) == 1){
+            return cells;
+        }
+        return Integer.highestOneBit(Math.max(1, cells + 2*radius - 1)) << 1;
+    }
+
+    // The kernel, centred at cell (0, 0) of the plane and wrapping around
+    // its edges, transformed
+    private float[] kernelSpectrum(){
+        float[] kernelRe = new float[planeRows*planeColumns];
+        float[] kernelIm = new float[planeRows*planeColumns];
+        double total = 0;
+        for(int dx = -radius; dx <= radius; dx++){
+            for(int dy = -radius; dy <= radius; dy++){
+                double value = kernel(Math.sqrt(dx*dx + dy*dy)/radius);
+                int index = Math.floorMod(dx, planeRows)*planeColumns + Math.floorMod(dy, planeColumns);
+                kernelRe[index] += (float)value;
+                total += value;
+            }
+        }
+        // The kernel adds up to 1 and the inverse transform is not scaled
+        float scale = (float)(1.0/(total*planeRows*planeColumns));
+        transform(kernelRe, kernelIm, planeRows, false);
+        for(int i = 0; i < kernelRe.length; i++){
+            kernelRe[i] *= scale;
+        }
+        return kernelRe;
+    }
+
+    // The kernel at the distance r from its centre, in units of the radius
+    private double kernel(double r){
+        if(r >= 1.0){
+            return 0.0;
+        }
+        double ring = r*peaks.length;
+        int peak = (int)ring;
+        double x = ring - peak;
+        return (x <= 0.0) ? 0.0 : peaks[peak]*Math.exp(4.0 - 1.0/(x*(1.0 - x)));
+    }
+
+    @Override
+    public synchronized void step(){
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        long start = System.nanoTime();
+        StepEvent event = new StepEvent();
+        event.begin();
+        advance();
+        channels.getMetrics().recordStep(System.nanoTime() - start, (long)rows*columns);
+        event.commit(name, currentGeneration + 1, rows, columns, this::changedCells);
+        if(currentGeneration < generations - 1){
+              currentGeneration++;
+        }
+        if(currentGeneration == generations - 1){
+            channels.updateStatus(GeneratorStatusType.FINISHED);
+        }
+    }
+
+    // Cells that changed with the last step, counted by advance
+    private long changedCells(){
+        return changes.sum();
+    }
+
+    // Calculates the next generation
+    private void advance(){
+        // The rows and columns of the grid a row or column of the plane reads,
+        // -1 for none
+        int[] rowSources = sources(rows, planeRows);
+        int[] columnSources = sources(columns, planeColumns);
+
+        // CONVOLUTION: transform, multiply with the spectrum of the kernel,
+        // transform back. The grid is real, so a complex transform takes two
+        // rows at once, one as the real and one as the imaginary part.
+        IntStream.range(0, (planeRows + 1)/2).parallel().forEach((int pair) -> {
+            int p = 2*pair;
+            int offset = p*planeColumns;
+            int source = rowSources[p];
+            int second = (p + 1 < planeRows) ? rowSources[p + 1] : -1;
+            if(source < 0 && second < 0){
+                Arrays.fill(re, offset, Math.min(re.length, offset + 2*planeColumns), 0.0f);
+                Arrays.fill(im, offset, Math.min(im.length, offset + 2*planeColumns), 0.0f);
+                return;
+            }
+            for(int q = 0; q < planeColumns; q++){
+                int column = columnSources[q];
+                re[offset + q] = (column < 0 || source < 0) ? 0.0f : cells[source*columns + column];
+                im[offset + q] = (column < 0 || second < 0) ? 0.0f : cells[second*columns + column];
+            }
+            rowFft.transform(re, im, offset, false);
+            if(p + 1 < planeRows){
+                split(offset, offset + planeColumns);
+            }
+        });
+        IntStream.range(0, (planeColumns + COLUMN_BLOCK - 1)/COLUMN_BLOCK).parallel().forEach((int block) -> {
+            float[][] buffers = columnBuffer();
+            float[] columnRe = buffers[0];
+            float[] columnIm = buffers[1];
+            int from = block*COLUMN_BLOCK;
+            int count = Math.min(COLUMN_BLOCK, planeColumns - from);
+            // The columns of the block one after another, read a row at a time
+            for(int p = 0; p < planeRows; p++){
+                for(int c = 0; c < count; c++){
+                    columnRe[c*planeRows + p] = re[p*planeColumns + from + c];
+                    columnIm[c*planeRows + p] = im[p*planeColumns + from + c];
+                }
+            }
+            for(int c = 0; c < count; c++){
+                int offset = c*planeRows;
+                columnFft.transform(columnRe, columnIm, offset, false);
+                for(int p = 0; p < planeRows; p++){
+                    float factor = spectrum[p*planeColumns + from + c];
+                    columnRe[offset + p] *= factor;
+                    columnIm[offset + p] *= factor;
+                }
+                columnFft.transform(columnRe, columnIm, offset, true);
+            }
+            // Only the rows of the grid are needed at the end
+            for(int p = 0; p < rows; p++){
+                for(int c = 0; c < count; c++){
+                    re[p*planeColumns + from + c] = columnRe[c*planeRows + p];
+                    im[p*planeColumns + from + c] = columnIm[c*planeRows + p];
+                }
+            }
+        });
+
+        // ALGORITHM -> Lenia
+        // The results are real, so the spectra of two rows go into one
+        // inverse transform as A + iB, giving the first row as the real and
+        // the second one as the imaginary part
+        float center = (float)mu;
+        float spread = (float)(-1.0/(2.0*sigma*sigma));
+        float step = (float)dt;
+        changes.reset();
+        LongAdder population = new LongAdder();
+        IntStream.range(0, (rows + 1)/2).parallel().forEach((int pair) -> {
+            int x = 2*pair;
+            int offset = x*planeColumns;
+            int count = Math.min(2, rows - x);
+            if(count == 2){
+                int second = offset + planeColumns;
+                for(int q = 0; q < planeColumns; q++){
+                    float yr = re[offset + q] - im[second + q];
+                    float yi = im[offset + q] + re[second + q];
+                    re[offset + q] = yr;
+                    im[offset + q] = yi;
+                }
+            }
+            rowFft.transform(re, im, offset, true);
+            int changed = 0;
+            int alive = 0;
+            for(int r = 0; r < count; r++){
+                float[] result = (r == 0) ? re : im;
+                int row = (x + r)*columns;
+                for(int y = 0; y < columns; y++){
+                    float u = result[offset + y] - center;
+                    float growth = 2.0f*(float)Math.exp(spread*u*u) - 1.0f;
+                    float value = Math.min(1.0f, Math.max(0.0f, cells[row + y] + step*growth));
+                    if(value != cells[row + y]){
+                        changed++;
+                    }
+                    cells[row + y] = value;
+                    if(value > 0.0f){
+                        alive++;
+                    }
+                }
+            }
+            changes.add(changed);
+            population.add(alive);
+        });
+        channels.getMetrics().recordPopulation(population.sum());
+    }
+
+    // Splits the transform Z of two real rows a + ib, stored at the first
+    // row, into the transforms A = (Z(k) + conj Z(-k))/2 and
+    // B = (Z(k) - conj Z(-k))/2i of the rows
+    private void split(int first, int second){
+        int n = planeColumns;
+        for(int k = 0; k <= n/2; k++){
+            int m = (n - k) & (n - 1);
+            float zr = re[first + k];
+            float zi = im[first + k];
+            float mr = re[first + m];
+            float mi = im[first + m];
+            re[first + k] = 0.5f*(zr + mr);
+            im[first + k] = 0.5f*(zi - mi);
+            re[second + k] = 0.5f*(zi + mi);
+            im[second + k] = -0.5f*(zr - mr);
+            re[first + m] = 0.5f*(mr + zr);
+            im[first + m] = 0.5f*(mi - zi);
+            re[second + m] = 0.5f*(mi + zi);
+            im[second + m] = -0.5f*(mr - zr);
+        }
+    }
+
+    // The index of the grid every index of the plane reads: the grid itself,
+    // radius ghost cells after its end and radius ghost cells before its
+    // start, which wrap around to the end of the plane
+    private int[] sources(int length, int planeLength){
+        int[] sources = new int[planeLength];
+        for(int i = 0; i < planeLength; i++){
+            if(i < length){
+                sources[i] = i;
+            }
+            else if(i < length + radius){
+                sources[i] = boundary.source(i, length);
+            }
+            else if(i >= planeLength - radius){
+                sources[i] = boundary.source(i - planeLength, length);
+            }
+            else {
+                sources[i] = -1;
+            }
+        }
+        return sources;
+    }
+
+    // The buffers of the calling thread for a block of columns of the plane
+    private float[][] columnBuffer(){
+        float[][] buffers = columnBuffers.get();
+        if(buffers[0].length != COLUMN_BLOCK*planeRows){
+            buffers = new float[][]{new float[COLUMN_BLOCK*planeRows], new float[COLUMN_BLOCK*planeRows]};
+            columnBuffers.set(buffers);
+        }
+        return buffers;
+    }
+
+    // Transforms a plane, the rows and then the columns
+    private void transform(float[] planeRe, float[] planeIm, int length, boolean inverse){
+        for(int p = 0; p < length; p++){
+            rowFft.transform(planeRe, planeIm, p*planeColumns, inverse);
+        }
+        float[] columnRe = new float[planeRows];
+        float[] columnIm = new float[planeRows];
+        for(int q = 0; q < planeColumns; q++){
+            for(int p = 0; p < planeRows; p++){
+                columnRe[p] = planeRe[p*planeColumns + q];
+                columnIm[p] = planeIm[p*planeColumns + q];
+            }
+            columnFft.transform(columnRe, columnIm, 0, inverse);
+            for(int p = 0; p < planeRows; p++){
+                planeRe[p*planeColumns + q] = columnRe[p];
+                planeIm[p*planeColumns + q] = columnIm[p];
+            }
+        }
+    }
+
+    @Override
+    public BufferedImage render(){
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        // A pixel per cell
+        BufferedImage image = new BufferedImage(Math.max(1, rows), Math.max(1, columns), BufferedImage.TYPE_INT_ARGB);
+
+        // Cells at 0 are white, cells at 1 black
+        int[] colors = new int[256];
+        for(int value = 0; value < colors.length; value++){
+            colors[value] = new Color(255 - value, 255 - value, 255 - value).getRGB();
+        }
+
+        // DRAW IMAGE
+        // Row k of the grid is the column x = k of the image, so the pixels
+        // are the grid transposed. The lines are drawn in tiles of TILE
+        // lines, which read every row of the grid in one piece.
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        IntStream.range(0, (columns + TILE - 1)/TILE).parallel().forEach((int tile) -> {
+            int from = tile*TILE;
+            int to = Math.min(columns, from + TILE);
+            for(int k = 0; k < rows; k++){
+                int offset = k*columns;
+                for(int l = from; l < to; l++){
+                    pixels[l*rows + k] = colors[(int)(cells[offset + l]*255.0f)];
+                }
+            }
+        });
+        event.commit(name, currentGeneration, rows, columns);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
+        return image;
+    }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        long living = 0;
+        double mass = 0;
+        for(float value : cells){
+            if(value > 0.0f) living++;
+            mass += value;
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("alive", living);
+        statistics.put("mass", Math.round(mass));
+        statistics.put("dead", (long)rows*columns - living);
+        return statistics;
+    }
+
+    @Override
+    public void save() {
+        channels.updateStatus(GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", ImageZoom.zoom(this.render(), size), channels.getMetrics()::recordSave);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
+    }
+
+    @Override
+    public String getStatus() {
+        return channels.getStatus().toString();
+    }
+
+    private void showDialog() {
+        //Load Setup Dialog with Parmameters for Width/Height and Size of the quadrats
+        SpinnerModel widthHeightModel = new SpinnerNumberModel(this.width, 0, 9000, 1);
+        SpinnerModel sizeModel = new SpinnerNumberModel(this.size, 1, 50, 1);
+
+        //Load Setup Dialog with Parmameters for generation number,
+        // the percentage of alive cells and the kernel and growth.
+        SpinnerModel generationModel = new SpinnerNumberModel(this.generations, 0, 10000, 1);
+        SpinnerModel aliveModel = new SpinnerNumberModel(this.alive*100.0, 0.0, 100.0, 1.0);
+        SpinnerModel radiusModel = new SpinnerNumberModel(this.radius, 1, 200, 1);
+        SpinnerModel muModel = new SpinnerNumberModel(this.mu, 0.0, 1.0, 0.001);
+        SpinnerModel sigmaModel = new SpinnerNumberModel(this.sigma, 0.0001, 1.0, 0.001);
+        SpinnerModel dtModel = new SpinnerNumberModel(this.dt, 0.001, 1.0, 0.01);
+
+        JSpinner widthHeightSpinner = new JSpinner(widthHeightModel);
+        JSpinner sizeSpinner = new JSpinner(sizeModel);
+
+        JSpinner generationSpinner = new JSpinner(generationModel);
+        JSpinner aliveSpinner = new JSpinner(aliveModel);
+        JSpinner radiusSpinner = new JSpinner(radiusModel);
+        JSpinner muSpinner = new JSpinner(muModel);
+        JSpinner sigmaSpinner = new JSpinner(sigmaModel);
+        JSpinner dtSpinner = new JSpinner(dtModel);
+        JTextField peaksField = new JTextField(formatPeaks(this.peaks));
+        JComboBox<Boundary> boundaryCombo = new JComboBox<>(Boundary.values());
+        boundaryCombo.setSelectedItem(this.boundary);
+
+        JButton generateButton = new JButton("Generate");
+        JButton cancelButton = new JButton("Cancel");
+
+        JOptionPane optionPane = new JOptionPane(
+                "Parameters",
+                JOptionPane.PLAIN_MESSAGE,
+                JOptionPane.OK_CANCEL_OPTION,
+                null,
+                new Object[]{
+                    new JLabel("Width/Height:"),
+                    widthHeightSpinner,
+                    new JLabel("Quadrat Size:"),
+                    sizeSpinner,
+                    new JLabel("Generations:"),
+                    generationSpinner,
+                    new JLabel("Cells with a value at the start:"),
+                    aliveSpinner,
+                    new JLabel(" in %."),
+                    new JLabel("Boundary:"),
+                    boundaryCombo,
+                    new JLabel("Kernel radius:"),
+                    radiusSpinner,
+                    new JLabel("Kernel peaks:"),
+                    peaksField,
+                    new JLabel("Growth centre (mu):"),
+                    muSpinner,
+                    new JLabel("Growth width (sigma):"),
+                    sigmaSpinner,
+                    new JLabel("Time step:"),
+                    dtSpinner,
+                    generateButton,
+                    cancelButton},
+                null);
+        JDialog setupDialog = optionPane.createDialog(optionPane, "Setup Lenia Generator");
+
+        //Add WindowsListener for CloseEvent
+        setupDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                setupDialog.dispose();
+                setupDialogIsOpen = false;
+                channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
+            }
+        });
+
+        //Add ActionListeners
+        cancelButton.addActionListener((ActionEvent e) -> {
+            setupDialogIsOpen = false;
+            setupDialog.dispose();
+            channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
+        });
+
+        generateButton.addActionListener((ActionEvent e) -> {
+            double[] selectedPeaks;
+            try {
+                selectedPeaks = parsePeaks(peaksField.getText());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(setupDialog, ex.getMessage(), "Kernel peaks", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            this.peaks = selectedPeaks;
+            this.width = (int) widthHeightSpinner.getValue();
+            this.height = (int) widthHeightSpinner.getValue();
+            this.size = (int)sizeSpinner.getValue();
+
+            this.generations = (int) generationSpinner.getValue();
+            this.alive = ((double)aliveSpinner.getValue())/100.0;
+            this.boundary = (Boundary)boundaryCombo.getSelectedItem();
+            this.radius = (int)radiusSpinner.getValue();
+            this.mu = (double)muSpinner.getValue();
+            this.sigma = (double)sigmaSpinner.getValue();
+            this.dt = (double)dtSpinner.getValue();
+
+            setupDialogIsOpen = false;
+            setupDialog.dispose();
+            channels.updateStatus(GeneratorStatusType.READY);
+        });
+
+        setupDialog.setModal(false);
+        setupDialog.setVisible(true);
+        setupDialogIsOpen = true;
+    }
+
+    @Override
+    public void setup() {
+        if (!setupDialogIsOpen) {
+            channels.updateStatus(GeneratorStatusType.SETUP);
+            showDialog();
+        }
+    }
+
+    @Override
+    public synchronized void checkpoint(String filename) throws IOException {
+        if(random == null){
+            throw new IllegalStateException("There is no run to write a checkpoint of");
+        }
+        // The bits of the floats, so a restored run continues exactly
+        new Snapshot(this, random.getSeed(), rows, columns)
+                .addPlane(32, (int row, int column) -> Float.floatToRawIntBits(cells[row*columns + column]))
+                .write(new File(filename));
+    }
+
+    @Override
+    public synchronized void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 1);
+        applyParameters(snapshot.getParameters());
+        if(snapshot.getRows() != this.height/size || snapshot.getColumns() != this.width/size){
+            throw new IOException("The grid of the snapshot does not match its parameters");
+        }
+        rows = (int)this.height/size;
+        columns = (int)this.width/size;
+        allocate();
+        snapshot.readPlane(0, (int row, int column, int value) -> cells[row*columns + column] = Float.intBitsToFloat(value));
+        currentGeneration = snapshot.getGeneration();
+        random = new RandomFill(snapshot.getSeed());
+        restored = true;
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        applyParameters(parameters);
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    private void applyParameters(Properties parameters) {
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        this.size = Integer.parseInt(parameters.getProperty("quadrat", String.valueOf(this.size)));
+
+        this.generations = Integer.parseInt(parameters.getProperty("generations", String.valueOf(this.generations)));
+        this.alive = Double.parseDouble(parameters.getProperty("alive", String.valueOf(this.alive)));
+        this.boundary = Boundary.parse(parameters.getProperty("boundary", this.boundary.name()));
+        int newRadius = Integer.parseInt(parameters.getProperty("radius", String.valueOf(this.radius)));
+        if(newRadius < 1){
+            throw new IllegalArgumentException("The radius must be at least 1: " + newRadius);
+        }
+        this.radius = newRadius;
+        this.peaks = parsePeaks(parameters.getProperty("peaks", formatPeaks(this.peaks)));
+        this.mu = Double.parseDouble(parameters.getProperty("mu", String.valueOf(this.mu)));
+        this.sigma = Double.parseDouble(parameters.getProperty("sigma", String.valueOf(this.sigma)));
+        this.dt = Double.parseDouble(parameters.getProperty("dt", String.valueOf(this.dt)));
+        String seedValue = parameters.getProperty("seed", (this.seed != null) ? String.valueOf(this.seed) : "");
+        this.seed = seedValue.isEmpty() ? null : Long.valueOf(seedValue);
+    }
+
+    // Heights of the rings separated by commas, e.g. 1 or 0.5,1,0.667
+    private static double[] parsePeaks(String value){
+        String[] parts = value.split(",");
+        double[] result = new double[parts.length];
+        try {
+            for(int i = 0; i < parts.length; i++){
+                result[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Unknown kernel peaks: " + value, ex);
+        }
+        double total = 0;
+        for(double peak : result){
+            if(peak < 0.0){
+                throw new IllegalArgumentException("Unknown kernel peaks: " + value);
+            }
+            total += peak;
+        }
+        if(total <= 0.0){
+            throw new IllegalArgumentException("Unknown kernel peaks: " + value);
+        }
+        return result;
+    }
+
+    private static String formatPeaks(double[] peaks){
+        StringBuilder value = new StringBuilder();
+        for(double peak : peaks){
+            if(value.length() > 0){
+                value.append(',');
+            }
+            value.append(peak);
+        }
+        return value.toString();
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        parameters.setProperty("quadrat", String.valueOf(this.size));
+        parameters.setProperty("generations", String.valueOf(this.generations));
+        parameters.setProperty("alive", String.valueOf(this.alive));
+        parameters.setProperty("boundary", this.boundary.name());
+        parameters.setProperty("radius", String.valueOf(this.radius));
+        parameters.setProperty("peaks", formatPeaks(this.peaks));
+        parameters.setProperty("mu", String.valueOf(this.mu));
+        parameters.setProperty("sigma", String.valueOf(this.sigma));
+        parameters.setProperty("dt", String.valueOf(this.dt));
+        if(this.seed != null){
+            parameters.setProperty("seed", String.valueOf(this.seed));
+        }
+        return parameters;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public int getGenerations() {
+        return generations;
+    }
+
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public int getQuadratSize() {
+        return size;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
+
+}
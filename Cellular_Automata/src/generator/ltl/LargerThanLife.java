@@ -0,0 +1,563 @@
+package generator.ltl;
+
+import generator.Boundary;
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
+import generator.IGenerator;
+import generator.IStatusListener;
+import generator.InitializeEvent;
+import generator.RandomFill;
+import generator.RenderEvent;
+import generator.Snapshot;
+import generator.StepEvent;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerModel;
+import javax.swing.SpinnerNumberModel;
+import services.IBufferedImageSaveService;
+import services.ImageZoom;
+
+/**Implementation of Larger than Life as a generator.
+ * Larger than Life generalizes the Game of Life to the neighbourhood of
+ * radius r, the (2r+1)x(2r+1) square around a cell, see LtlRule.
+ * The following configuration has been used:
+ *      - the edges are fixed, toroidal or reflective (see Boundary), the
+ *        cells outside of a fixed grid are dead and the edges die,
+ *      - the game starts with randomly distributed living cells,
+ *      - the user can choose the width/height of the image as well as
+ *        the size of the quadrants which will be drawn.
+ *      The following game parameters are choosable:
+ *      - the percentage of the living cells at the beginning,
+ *      - the rule in the notation of Golly, Bosco's rule by default,
+ *      - the number of generations.
+ * Every generation builds a summed-area table of the living cells, including
+ * the ghost cells r cells beyond the edges, so the living cells of any square
+ * are the sum of four entries of the table. A generation therefore takes the
+ * same time for every radius. The rows are computed in parallel.
+ */
+public class LargerThanLife implements IGenerator{
+
+    private int height = 600;
+    private int width = 600;
+    private int size = 2; // size of the quadrat in pixels
+    private static final int TILE = 64; // lines of the image drawn together, see render
+
+    private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
+    private final GeneratorChannels channels = new GeneratorChannels(this);
+    private final IBufferedImageSaveService saveService;
+    private String name = "LargerThanLifeGenerator";
+
+    private int generations = 100;
+    private int currentGeneration = 0;
+
+    private double alive = 0.5; // Living cells ratio at the beginning
+    private Boundary boundary = Boundary.FIXED;
+    private LtlRule rule = LtlRule.BOSCO;
+
+    private int rows;
+    private int columns;
+    private int [] cells; // cell (i, j) is cells[i*columns + j]
+    private int [] next; // buffer for the next generation, reused between generations and runs
+    // Living cells of the rows and columns from -radius up to the entry, see advance
+    private int [] sums;
+    private boolean restored = false; // the next reset keeps the grid of a restored checkpoint
+    private Long seed = null; // seed of the start configuration, null for a new one every run
+    private RandomFill random; // random numbers of the current run
+
+    /**
+     * Constructor
+     *
+     * @param saveService Inject IBufferedImageService
+     */
+    public LargerThanLife(IBufferedImageSaveService saveService) {
+        this.saveService = saveService;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param saveService Inject IBufferedImageService
+     * @param name Name for this generator
+     */
+    public LargerThanLife(IBufferedImageSaveService saveService, String name) {
+        this.saveService = saveService;
+        this.name = name;
+    }
+
+    @Override
+    public BufferedImage initialize() {
+        reset();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public BufferedImage generate(){
+        step();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public synchronized void reset() {
+        channels.updateStatus(IGenerator.GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        InitializeEvent event = new InitializeEvent();
+        event.begin();
+        if(restored){
+            restored = false;
+            channels.getMetrics().recordPopulation(getStatistics().get("alive"));
+            event.commit(name, currentGeneration, rows, columns);
+            return;
+        }
+
+        // STARTCONFIGURATION
+        rows = (int)this.height/size;
+        columns = (int)this.width/size;
+        allocate();
+
+        // Fill randomly with zeros and ones
+        random = new RandomFill((seed != null) ? seed : new SplittableRandom().nextLong());
+        random.fill(rows, (int row, SplittableRandom rowRandom)
+                -> RandomFill.fill(cells, row*columns, (row + 1)*columns, rowRandom, alive));
+        if(boundary == Boundary.FIXED){
+            killEdges(cells);
+        }
+        currentGeneration = 1;
+        channels.getMetrics().recordPopulation(getStatistics().get("alive"));
+        event.commit(name, currentGeneration, rows, columns);
+    }
+
+    // Keeps the buffers of the last run if the dimensions did not change
+    private void allocate(){
+        if(cells == null || cells.length != rows*columns){
+            cells = new int[rows*columns];
+            next = new int[rows*columns];
+        }
+        int radius = rule.getRadius();
+        int length = (rows + 2*radius + 1)*(columns + 2*radius + 1);
+        if(sums == null || sums.length != length){
+            sums = new int[length];
+        }
+    }
+
+    @Override
+    public synchronized void step(){
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        long start = System.nanoTime();
+        StepEvent event = new StepEvent();
+        event.begin();
+        advance();
+        channels.getMetrics().recordStep(System.nanoTime() - start, (long)rows*columns);
+        event.commit(name, currentGeneration + 1, rows, columns, this::changedCells);
+        if(currentGeneration < generations - 1){
+              currentGeneration++;
+        }
+        if(currentGeneration == generations - 1){
+            channels.updateStatus(GeneratorStatusType.FINISHED);
+        }
+    }
+
+    // Cells that changed with the last step, next holds the previous generation
+    private long changedCells(){
+        long changed = 0;
+        for(int i = 0; i < rows*columns; i++){
+            if(cells[i] != next[i]){
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // Calculates the next generation
+    private void advance(){
+        int radius = rule.getRadius();
+        int[] table = rule.getTable();
+        int[] living = rule.getAlive();
+        int counts = rule.getMaxCount() + 1;
+        int middle = rule.isMiddleCounted() ? 0 : 1;
+        // The grid with ghost cells, radius rows and columns beyond each edge
+        int paddedRows = rows + 2*radius;
+        int paddedColumns = columns + 2*radius;
+        int stride = paddedColumns + 1;
+        int[] sources = new int[paddedColumns];
+        for(int j = 0; j < paddedColumns; j++){
+            sources[j] = boundary.source(j - radius, columns);
+        }
+
+        // SUMMED-AREA TABLE: sums[(i+1)*stride + j+1] holds the living cells
+        // of the padded rows 0 to i and columns 0 to j, row 0 and column 0
+        // of the table are 0. First the sums along the rows...
+        IntStream.range(0, paddedRows).parallel().forEach((int i) -> {
+            int source = boundary.source(i - radius, rows);
+            int entry = (i + 1)*stride;
+            sums[entry] = 0;
+            if(source < 0){
+                Arrays.fill(sums, entry + 1, entry + stride, 0);
+                return;
+            }
+            int offset = source*columns;
+            int sum = 0;
+            for(int j = 0; j < paddedColumns; j++){
+                int column = sources[j];
+                sum += (column < 0) ? 0 : living[cells[offset + column]];
+                sums[entry + j + 1] = sum;
+            }
+        });
+        // ...then down the columns, in strips of columns side by side
+        int strip = 1024;
+        IntStream.range(0, (stride + strip - 1)/strip).parallel().forEach((int s) -> {
+            int from = s*strip;
+            int to = Math.min(stride, from + strip);
+            for(int i = 2; i <= paddedRows; i++){
+                int entry = i*stride;
+                for(int j = from; j < to; j++){
+                    sums[entry + j] += sums[entry - stride + j];
+                }
+            }
+        });
+
+        // ALGORITHM -> Larger than Life
+        // The square of cell (x, y) covers the padded rows x to x+2r and
+        // columns y to y+2r
+        int first = boundary.first();
+        int side = 2*radius + 1;
+        LongAdder population = new LongAdder();
+        IntStream.range(first, rows - first).parallel().forEach((int x) -> {
+            int top = x*stride;
+            int bottom = (x + side)*stride;
+            int offset = x*columns;
+            int alive = 0;
+            for(int y = first; y < columns - first; y++){
+                int state = cells[offset + y];
+                int neighbors = sums[bottom + y + side] - sums[bottom + y]
+                        - sums[top + y + side] + sums[top + y]
+                        - middle*living[state];
+                next[offset + y] = table[state*counts + neighbors];
+                alive += living[next[offset + y]];
+            }
+            population.add(alive);
+        });
+        channels.getMetrics().recordPopulation(population.sum());
+        if(boundary == Boundary.FIXED){
+            killEdges(next);
+        }
+        int[] previous = cells;
+        cells = next;
+        next = previous;
+    }
+
+    // The cells at the edges of a fixed grid are dead
+    private void killEdges(int[] grid){
+        if(rows == 0 || columns == 0){
+            return;
+        }
+        Arrays.fill(grid, 0, columns, 0);
+        Arrays.fill(grid, (rows - 1)*columns, rows*columns, 0);
+        for(int x = 1; x < rows - 1; x++){
+            grid[x*columns] = 0;
+            grid[x*columns + columns - 1] = 0;
+        }
+    }
+
+    @Override
+    public BufferedImage render(){
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        // A pixel per cell
+        BufferedImage image = new BufferedImage(Math.max(1, rows), Math.max(1, columns), BufferedImage.TYPE_INT_ARGB);
+
+        // Dead cells are white, alive ones black and dying ones get lighter
+        int[] colors = new int[rule.getStates()];
+        colors[0] = Color.WHITE.getRGB();
+        colors[1] = Color.BLACK.getRGB();
+        for(int state = 2; state < colors.length; state++){
+            int gray = 255*(state - 1)/(colors.length - 1);
+            colors[state] = new Color(gray, gray, gray).getRGB();
+        }
+
+        // DRAW IMAGE
+        // Row k of the grid is the column x = k of the image, so the pixels
+        // are the grid transposed. The lines are drawn in tiles of TILE
+        // lines, which read every row of the grid in one piece.
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        IntStream.range(0, (columns + TILE - 1)/TILE).parallel().forEach((int tile) -> {
+            int from = tile*TILE;
+            int to = Math.min(columns, from + TILE);
+            for(int k = 0; k < rows; k++){
+                int offset = k*columns;
+                for(int l = from; l < to; l++){
+                    pixels[l*rows + k] = colors[cells[offset + l]];
+                }
+            }
+        });
+        event.commit(name, currentGeneration, rows, columns);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
+        return image;
+    }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        long living = 0;
+        long dying = 0;
+        for(int state : cells){
+            if(state == 1) living++;
+            else if(state > 1) dying++;
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("alive", living);
+        if(rule.getStates() > 2){
+            statistics.put("dying", dying);
+        }
+        statistics.put("dead", (long)rows*columns - living - dying);
+        return statistics;
+    }
+
+    @Override
+    public void save() {
+        channels.updateStatus(GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", ImageZoom.zoom(this.render(), size), channels.getMetrics()::recordSave);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
+    }
+
+    @Override
+    public String getStatus() {
+        return channels.getStatus().toString();
+    }
+
+    private void showDialog() {
+        //Load Setup Dialog with Parmameters for Width/Height and Size of the quadrats
+        SpinnerModel widthHeightModel = new SpinnerNumberModel(this.width, 0, 9000, 1);
+        SpinnerModel sizeModel = new SpinnerNumberModel(this.size, 1, 50, 1);
+
+        //Load Setup Dialog with Parmameters for generation number
+        // and the percentage of alive cells.
+        SpinnerModel generationModel = new SpinnerNumberModel(this.generations, 0, 10000, 1);
+        SpinnerModel aliveModel = new SpinnerNumberModel(this.alive*100.0, 0.0, 100.0, 1.0);
+
+        JSpinner widthHeightSpinner = new JSpinner(widthHeightModel);
+        JSpinner sizeSpinner = new JSpinner(sizeModel);
+
+        JSpinner generationSpinner = new JSpinner(generationModel);
+        JSpinner aliveSpinner = new JSpinner(aliveModel);
+        JComboBox<Boundary> boundaryCombo = new JComboBox<>(Boundary.values());
+        boundaryCombo.setSelectedItem(this.boundary);
+        JComboBox<String> ruleCombo = new JComboBox<>(LtlRule.getNames());
+        ruleCombo.setEditable(true);
+        ruleCombo.setSelectedItem(this.rule.toString());
+
+        JButton generateButton = new JButton("Generate");
+        JButton cancelButton = new JButton("Cancel");
+
+        JOptionPane optionPane = new JOptionPane(
+                "Parameters",
+                JOptionPane.PLAIN_MESSAGE,
+                JOptionPane.OK_CANCEL_OPTION,
+                null,
+                new Object[]{
+                    new JLabel("Width/Height:"),
+                    widthHeightSpinner,
+                    new JLabel("Quadrat Size:"),
+                    sizeSpinner,
+                    new JLabel("Generations:"),
+                    generationSpinner,
+                    new JLabel("Alive cells at the start:"),
+                    aliveSpinner,
+                    new JLabel(" in %."),
+                    new JLabel("Boundary:"),
+                    boundaryCombo,
+                    new JLabel("Rule (R,C,M,S,B):"),
+                    ruleCombo,
+                    generateButton,
+                    cancelButton},
+                null);
+        JDialog setupDialog = optionPane.createDialog(optionPane, "Setup Larger than Life Generator");
+
+        //Add WindowsListener for CloseEvent
+        setupDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                setupDialog.dispose();
+                setupDialogIsOpen = false;
+                channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
+            }
+        });
+
+        //Add ActionListeners
+        cancelButton.addActionListener((ActionEvent e) -> {
+            setupDialogIsOpen = false;
+            setupDialog.dispose();
+            channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
+        });
+
+        generateButton.addActionListener((ActionEvent e) -> {
+            LtlRule selectedRule;
+            try {
+                selectedRule = LtlRule.parse(String.valueOf(ruleCombo.getSelectedItem()));
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(setupDialog, ex.getMessage(), "Rule", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            this.rule = selectedRule;
+            this.width = (int) widthHeightSpinner.getValue();
+            this.height = (int) widthHeightSpinner.getValue();
+            this.size = (int)sizeSpinner.getValue();
+
+            this.generations = (int) generationSpinner.getValue();
+            this.alive = ((double)aliveSpinner.getValue())/100.0;
+            this.boundary = (Boundary)boundaryCombo.getSelectedItem();
+
+            setupDialogIsOpen = false;
+            setupDialog.dispose();
+            channels.updateStatus(GeneratorStatusType.READY);
+        });
+
+        setupDialog.setModal(false);
+        setupDialog.setVisible(true);
+        setupDialogIsOpen = true;
+    }
+
+    @Override
+    public void setup() {
+        if (!setupDialogIsOpen) {
+            channels.updateStatus(GeneratorStatusType.SETUP);
+            showDialog();
+        }
+    }
+
+    @Override
+    public synchronized void checkpoint(String filename) throws IOException {
+        if(random == null){
+            throw new IllegalStateException("There is no run to write a checkpoint of");
+        }
+        new Snapshot(this, random.getSeed(), rows, columns)
+                .addPlane(Snapshot.bitsFor(rule.getStates() - 1), (int row, int column) -> cells[row*columns + column])
+                .write(new File(filename));
+    }
+
+    @Override
+    public synchronized void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 1);
+        applyParameters(snapshot.getParameters());
+        if(snapshot.getRows() != this.height/size || snapshot.getColumns() != this.width/size){
+            throw new IOException("The grid of the snapshot does not match its parameters");
+        }
+        rows = (int)this.height/size;
+        columns = (int)this.width/size;
+        allocate();
+        snapshot.readPlane(0, (int row, int column, int value) -> cells[row*columns + column] = value);
+        currentGeneration = snapshot.getGeneration();
+        random = new RandomFill(snapshot.getSeed());
+        restored = true;
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        applyParameters(parameters);
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    private void applyParameters(Properties parameters) {
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        this.size = Integer.parseInt(parameters.getProperty("quadrat", String.valueOf(this.size)));
+
+        this.generations = Integer.parseInt(parameters.getProperty("generations", String.valueOf(this.generations)));
+        this.alive = Double.parseDouble(parameters.getProperty("alive", String.valueOf(this.alive)));
+        this.boundary = Boundary.parse(parameters.getProperty("boundary", this.boundary.name()));
+        this.rule = LtlRule.parse(parameters.getProperty("rule", this.rule.toString()));
+        String seedValue = parameters.getProperty("seed", (this.seed != null) ? String.valueOf(this.seed) : "");
+        this.seed = seedValue.isEmpty() ? null : Long.valueOf(seedValue);
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        parameters.setProperty("quadrat", String.valueOf(this.size));
+        parameters.setProperty("generations", String.valueOf(this.generations));
+        parameters.setProperty("alive", String.valueOf(this.alive));
+        parameters.setProperty("boundary", this.boundary.name());
+        parameters.setProperty("rule", this.rule.toString());
+        if(this.seed != null){
+            parameters.setProperty("seed", String.valueOf(this.seed));
+        }
+        return parameters;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public int getGenerations() {
+        return generations;
+    }
+
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public int getQuadratSize() {
+        return size;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
+
+}
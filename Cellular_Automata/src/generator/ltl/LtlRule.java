@@ -0,0 +1,172 @@
+package generator.ltl;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A Larger than Life rule: an outer-totalistic rule whose neighbourhood is
+ * the square of radius r around a cell.
+ *
+ * A rule is written in the notation of Golly, e.g. R5,C2,M1,S34..58,B34..45,NM
+ * for Bosco's rule: the radius, the number of states, whether the cell itself
+ * counts as a neighbour, the numbers of living neighbours for which a living
+ * cell survives and a dead one is born, and the Moore neighbourhood. As for
+ * the Generations rules of the Game of Life, a living cell that does not
+ * survive goes through the states after 1 before it is dead, and only the
+ * living cells count as neighbours.
+ *
+ * The rule is compiled into a table of the next state, indexed by the state of
+ * a cell times (getMaxCount() + 1) plus its number of living neighbours.
+ */
+public class LtlRule {
+
+    private static final Map<String, String> NAMES = new LinkedHashMap<>();
+
+    static {
+        NAMES.put("Bosco", "R5,C2,M1,S34..58,B34..45,NM");
+        NAMES.put("Majority", "R4,C2,M1,S41..81,B41..81,NM");
+        NAMES.put("Waffle", "R7,C2,M1,S100..200,B75..170,NM");
+        NAMES.put("Globe", "R8,C2,M0,S163..223,B74..252,NM");
+        NAMES.put("Bugs10", "R10,C2,M1,S123..212,B123..170,NM");
+    }
+
+    private static final Pattern NOTATION = Pattern.compile(
+            "R(\\d+),C(\\d+),M([01]),S(\\d+)\\.\\.(\\d+),B(\\d+)\\.\\.(\\d+)(?:,NM)?");
+
+    /**
+     * Bosco's rule
+     */
+    public static final LtlRule BOSCO = parse("R5,C2,M1,S34..58,B34..45,NM");
+
+    private final int radius;
+    private final int states;
+    private final boolean middle;
+    private final int survivalMin;
+    private final int survivalMax;
+    private final int birthMin;
+    private final int birthMax;
+    private final int[] table; // the next state of a cell at state*(maxCount+1) + living neighbours
+    private final int[] alive; // 1 for the living state, 0 for the others
+
+    private LtlRule(int radius, int states, boolean middle, int survivalMin, int survivalMax,
+            int birthMin, int birthMax) {
+        this.radius = radius;
+        this.states = states;
+        this.middle = middle;
+        this.survivalMin = survivalMin;
+        this.survivalMax = survivalMax;
+        this.birthMin = birthMin;
+        this.birthMax = birthMax;
+        int counts = getMaxCount() + 1;
+        this.table = new int[states * counts];
+        this.alive = new int[states];
+        alive[1] = 1;
+        for (int count = 0; count < counts; count++) {
+            table[count] = (count >= birthMin && count <= birthMax) ? 1 : 0;
+            table[counts + count] = (count >= survivalMin && count <= survivalMax) ? 1 : 2 % states;
+            for (int state = 2; state < states; state++) {
+                table[state * counts + count] = (state + 1) % states;
+            }
+        }
+    }
+
+    /**
+     *
+     * @param value A rule in the notation of Golly, with the Moore
+     * neighbourhood only, or one of the names of getNames
+     * @return The rule
+     */
+    public static LtlRule parse(String value) {
+        String rule = value.trim();
+        for (Map.Entry<String, String> name : NAMES.entrySet()) {
+            if (name.getKey().equalsIgnoreCase(rule)) {
+                rule = name.getValue();
+            }
+        }
+        Matcher matcher = NOTATION.matcher(rule.toUpperCase(Locale.ROOT).replaceAll("\\s", ""));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unknown rule: " + value);
+        }
+        int[] numbers = new int[7];
+        try {
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = Integer.parseInt(matcher.group(i + 1));
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Unknown rule: " + value, ex);
+        }
+        int radius = numbers[0];
+        if (radius < 1 || radius > 500 || numbers[1] < 2 || numbers[1] > 256) {
+            throw new IllegalArgumentException("Radius or states out of range: " + value);
+        }
+        return new LtlRule(radius, numbers[1], numbers[2] == 1, numbers[3], numbers[4], numbers[5], numbers[6]);
+    }
+
+    /**
+     *
+     * @return The names of the known rules
+     */
+    public static String[] getNames() {
+        return NAMES.keySet().toArray(new String[0]);
+    }
+
+    /**
+     *
+     * @return The radius of the neighbourhood
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     *
+     * @return The number of states: dead, alive and the dying states between
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     *
+     * @return True if a living cell counts itself as a neighbour
+     */
+    public boolean isMiddleCounted() {
+        return middle;
+    }
+
+    /**
+     *
+     * @return The largest number of living neighbours a cell can have
+     */
+    public int getMaxCount() {
+        int side = 2 * radius + 1;
+        return side * side - (middle ? 0 : 1);
+    }
+
+    /**
+     *
+     * @return The next state of a cell at state*(getMaxCount() + 1) + living
+     * neighbours
+     */
+    int[] getTable() {
+        return table;
+    }
+
+    /**
+     *
+     * @return 1 for the living state and 0 for the others, so that adding it
+     * up over the neighbours counts the living ones
+     */
+    int[] getAlive() {
+        return alive;
+    }
+
+    @Override
+    public String toString() {
+        return "R" + radius + ",C" + states + ",M" + (middle ? 1 : 0)
+                + ",S" + survivalMin + ".." + survivalMax + ",B" + birthMin + ".." + birthMax + ",NM";
+    }
+}
@@ -1,6 +1,14 @@
 package generator.simplegenerator;
 
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
 import generator.IGenerator;
+import generator.IStatusListener;
+import generator.RenderEvent;
+import generator.Snapshot;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
@@ -8,7 +16,12 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.geom.Ellipse2D;
 import java.awt.image.BufferedImage;
-import java.util.Observable;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
 import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
@@ -20,14 +33,15 @@ import services.IBufferedImageSaveService;
 
 /**
  * Implementation of a simple generator that creates a blue circle for a given
- * height and width.
+ * height and width. The circle is a single image: the generator is FINISHED
+ * after reset, it has no further generations and no statistics.
  */
-public class SimpleGenerator extends Observable implements IGenerator {
+public class SimpleGenerator implements IGenerator {
 
     private int height = 400;
     private int width = 400;
     private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
-    private GeneratorStatusType generatorStatus;
+    private final GeneratorChannels channels = new GeneratorChannels(this);
     private final IBufferedImageSaveService saveService;
     private String name = "SimpleGenerator";
     
@@ -55,38 +69,60 @@ public class SimpleGenerator extends Observable implements IGenerator {
     
     @Override
     public BufferedImage initialize(){
-      updateStatus(GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = image.createGraphics();
-        g2d.setColor(Color.BLUE);
-        g2d.fill(new Ellipse2D.Float(0, 0, image.getWidth(), image.getHeight()));
-        g2d.dispose();
-        updateStatus(GeneratorStatusType.FINISHED);
-        return image;   
+        reset();
+        return channels.publish(generations, render(), this::getStatistics);
     }
     
     @Override
     public BufferedImage generate() {
-        updateStatus(GeneratorStatusType.CALCULATE);
+        step();
+        return channels.publish(generations, render(), this::getStatistics);
+    }
+
+    @Override
+    public void reset() {
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        channels.updateStatus(GeneratorStatusType.FINISHED);
+    }
+
+    @Override
+    public void step() {
+        // The circle has no generations to calculate, it is drawn by render
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
+    }
+
+    @Override
+    public BufferedImage render() {
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
         BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2d = image.createGraphics();
         g2d.setColor(Color.BLUE);
         g2d.fill(new Ellipse2D.Float(0, 0, image.getWidth(), image.getHeight()));
         g2d.dispose();
-        updateStatus(GeneratorStatusType.FINISHED);
+        event.commit(name, generations, height, width);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
         return image;
     }
 
+    @Override
+    public Map<String, Long> getStatistics() {
+        return new LinkedHashMap<>();
+    }
+
     @Override
     public void save() {
-        updateStatus(GeneratorStatusType.SAVE);
-        this.saveService.saveBufferedImage("new", this.generate());
-        updateStatus(GeneratorStatusType.FINISHED);
+        channels.updateStatus(GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", this.render(), channels.getMetrics()::recordSave);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
     }
 
     @Override
     public String getStatus() {
-        return this.generatorStatus.toString();
+        return channels.getStatus().toString();
     }
 
     private void showDialog() {
@@ -119,7 +155,7 @@ public class SimpleGenerator extends Observable implements IGenerator {
             public void windowClosing(WindowEvent e) {
                 setupDialog.dispose();
                 setupDialogIsOpen = false;
-                updateStatus(GeneratorStatusType.UNCONFIGURED);
+                channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
             }
         });
 
@@ -127,7 +163,7 @@ public class SimpleGenerator extends Observable implements IGenerator {
         cancelButton.addActionListener((ActionEvent e) -> {
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.UNCONFIGURED);
+            channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
         });
 
         generateButton.addActionListener((ActionEvent e) -> {
@@ -135,7 +171,7 @@ public class SimpleGenerator extends Observable implements IGenerator {
             this.height = (int) heightSpinner.getValue();
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.READY);
+            channels.updateStatus(GeneratorStatusType.READY);
         });
 
         setupDialog.setModal(false);
@@ -146,11 +182,42 @@ public class SimpleGenerator extends Observable implements IGenerator {
     @Override
     public void setup() {
         if (!setupDialogIsOpen) {
-            updateStatus(GeneratorStatusType.SETUP);
+            channels.updateStatus(GeneratorStatusType.SETUP);
             showDialog();
         }
     }
 
+    @Override
+    public void checkpoint(String filename) throws IOException {
+        // The circle has no state besides its parameters
+        new Snapshot(this, 0, 0, 0).write(new File(filename));
+    }
+
+    @Override
+    public void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 0);
+        configure(snapshot.getParameters());
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        if (!parameters.getProperty("generations", String.valueOf(generations)).equals(String.valueOf(generations))) {
+            throw new IllegalArgumentException(name + " draws a single image, it has no generations to run");
+        }
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        return parameters;
+    }
+
     @Override
     public String getName() {
         return this.name;
@@ -161,21 +228,43 @@ public class SimpleGenerator extends Observable implements IGenerator {
         this.name = name;
     }
 
-    /**
-     * Updates the generator status and notifies all registered observer that
-     * the status has changed.
-     *
-     * @param newGeneratorStatusValue The new status for this generator
-     */
-    private void updateStatus(GeneratorStatusType newGeneratorStatusValue) {
-        this.generatorStatus = newGeneratorStatusValue;
-        //Notify Observers
-        setChanged();
-        notifyObservers();
+    @Override
+    public int getGenerations() {
+        return generations;
     }
 
     @Override
-    public int getGenerations() {
+    public int getCurrentGeneration() {
         return generations;
     }
+
+    @Override
+    public int getQuadratSize() {
+        return 1;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
 }
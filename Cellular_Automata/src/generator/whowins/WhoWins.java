@@ -1,17 +1,34 @@
 
 package generator.whowins;
 
+import generator.Boundary;
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
 import generator.IGenerator;
+import generator.IStatusListener;
+import generator.InitializeEvent;
+import generator.RandomFill;
+import generator.RenderEvent;
+import generator.Snapshot;
+import generator.StepEvent;
 import generator.wolfram.Rules;
 import generator.wolfram.StartConfig;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.Observable;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JDialog;
@@ -21,6 +38,7 @@ import javax.swing.JSpinner;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
 import services.IBufferedImageSaveService;
+import services.ImageZoom;
 
 /**Implementation of a Wolfram's elementary cellular automaton combining rules
  * using either OR or AND logical operator.
@@ -31,7 +49,7 @@ import services.IBufferedImageSaveService;
  *      - if both rules were evaluated as true, the quadrant is painted blue.
  * This one-dimensional cellular automaton has been modelled as a two dimensional array.
  * The following configuration has been used:
- *      - the edges are fixed,
+ *      - the edges are fixed, toroidal or reflective (see Boundary),
  *      - the user can choose the width/height of the image as well as
  *        the size of the quadrants which will be drawn.
  *      The following game parameters are choosable:
@@ -43,13 +61,13 @@ import services.IBufferedImageSaveService;
  *        OR and AND.
  */
 
-public class WhoWins extends Observable implements IGenerator{
+public class WhoWins implements IGenerator{
     private int height = 600;
     private int width = 600;
     private int size = 10; // size of the quadrat in pixels
     
     private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
-    private GeneratorStatusType generatorStatus;
+    private final GeneratorChannels channels = new GeneratorChannels(this);
     private final IBufferedImageSaveService saveService;
     private String name = "WhoWinsGenerator";
     
@@ -79,6 +97,11 @@ public class WhoWins extends Observable implements IGenerator{
     private int rows;
     private int columns;
     private Unit [][] units;
+    private int [] line; // the states of the previous generation with a ghost cell at each end
+    private Boundary boundary = Boundary.FIXED;
+    private Long seed = null; // seed of the start configuration, null for a new one every run
+    private RandomFill random; // random numbers of the current run
+    private boolean restored = false; // the next reset keeps the units of a restored checkpoint
     
     private int generations;
     private int currentGeneration = 0;
@@ -106,29 +129,59 @@ public class WhoWins extends Observable implements IGenerator{
 
     @Override
     public BufferedImage initialize() {
-         updateStatus(GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+        reset();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+    
+    @Override
+    public BufferedImage generate(){
+        step();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public synchronized void reset() {
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        InitializeEvent event = new InitializeEvent();
+        event.begin();
+        if(restored){
+            restored = false;
+            channels.getMetrics().recordPopulation(population(currentGeneration - 1));
+            event.commit(name, currentGeneration, rows, columns);
+            return;
+        }
         
         // STARTCONFIGURATION
         rows = (int)this.height/size;
         columns = (int)this.width/size;
-        units = new Unit[rows][columns];
+        // Keep the units of the last run if the dimensions did not change
+        if(units == null || units.length != rows || rows == 0 || units[0].length != columns){
+            units = new Unit[rows][columns];
+            line = new int[columns + 2];
+            for(int i = 0; i < rows; i++){
+                for(int j = 0; j < columns; j++){
+                    units[i][j] = new Unit(false, false, false);
+                }
+            }
+        }
         generations = units.length;
         
         // Fill with false values
         for(int i = 0; i < rows; i++){
             for(int j = 0; j < columns; j++){
-                for(int k = 0; k < 3; k++){
-                    units[i][j] = new Unit(false, false, false);
-                } 
+                units[i][j].setState(false);
+                units[i][j].setRule1(false);
+                units[i][j].setRule2(false);
             }
         }
         // Fill cells of the first column randomly with true-values
+        random = new RandomFill((seed != null) ? seed : new SplittableRandom().nextLong());
         if(startConf == StartConfig.RANDOM){
+            random.fill(1, (int row, SplittableRandom rowRandom)
+                    -> RandomFill.fill(line, 1, columns + 1, rowRandom, 0.5));
             for(int j = 0; j < columns; j++){
-                boolean trueOrfalse =(Math.random() < 0.5);
-                //boolean trueOrfalse =(Math.random() < 0.5)? false:true; 
-                units[0][j].setState(trueOrfalse);       
+                units[0][j].setState(line[j+1] == 1);       
             }          
         }
         else{ //Default start situation:  Fill the middle cell of the first column with the true value
@@ -138,94 +191,135 @@ public class WhoWins extends Observable implements IGenerator{
         currentGeneration = 1;
         setCurrentRule1();
         setCurrentRule2();
-        
-        
-        // DRAW IMAGE
-        Graphics2D g2d = image.createGraphics();
-           for(int k = 0; k < units.length; k++){
-            int x = k*size;
-            for(int l = 0; l < units[k].length; l++){
-                int y = l*size;
-                if(units[k][l].getState() == true){
-                    // Paint a blue rectangle
-                    g2d.setColor(Color.BLUE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size)); 
-                } else { // units[k][l].getState() == false
-                    // Paint a white rectangle
-                    g2d.setColor(Color.WHITE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                }
-            }
-        }
-        g2d.dispose();
-        return image;   
+        channels.getMetrics().recordPopulation(population(currentGeneration - 1));
+        event.commit(name, currentGeneration, rows, columns);
     }
-    
+
     @Override
-    public BufferedImage generate(){
-        updateStatus(GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+    public synchronized void step(){
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        long start = System.nanoTime();
+        StepEvent event = new StepEvent();
+        event.begin();
 
         // ALGORITHM: Wolfram's elementary cellular automaton
         // Combining two rule sets with each other using either OR or AND operator.
         int i = currentGeneration;
-        for(int j = 1; j < columns - 1; j++){
-            boolean left   = units[i-1][i-1].getState();
-            boolean me = units[i-1][j].getState();
-            boolean right  = units[i-1][j+1].getState();
+        for(int j = 0; j < columns; j++){
+            line[j+1] = units[i-1][j].getState() ? 1 : 0;
+        }
+        boundary.pad(line);
+        int first = boundary.first();
+        long positive = 0;
+        for(int j = first; j < columns - first; j++){
+            boolean left   = line[j] == 1;
+            boolean me = line[j+1] == 1;
+            boolean right  = line[j+2] == 1;
             units[i][j].setState(applyBothRules(left, me, right));
             units[i][j].setRule1(applyRule1(left, me, right));
             units[i][j].setRule2(applyRule2(left, me, right));
+            if(units[i][j].getState()){
+                positive++;
+            }
         } 
+        channels.getMetrics().recordPopulation(positive);
+        channels.getMetrics().recordStep(System.nanoTime() - start, columns);
+        event.commit(name, currentGeneration + 1, rows, columns, this::changedCells);
         if(currentGeneration < generations - 1){
               currentGeneration++;
         }
-          
+        if(currentGeneration == generations - 1){
+            channels.updateStatus(GeneratorStatusType.FINISHED);
+        }
+    }
+
+    // Cells of the line of the last step that differ from the line before
+    private long changedCells(){
+        int i = currentGeneration;
+        long changed = 0;
+        for(int j = 0; j < columns; j++){
+            if(units[i][j].getState() != units[i-1][j].getState()){
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // Set cells of line i
+    private long population(int i){
+        long population = 0;
+        for(int j = 0; j < columns; j++){
+            if(units[i][j].getState()){
+                population++;
+            }
+        }
+        return population;
+    }
+
+    @Override
+    public BufferedImage render(){
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        // A pixel per cell, row k of the grid is the column x = k of the image
+        BufferedImage image = new BufferedImage(Math.max(1, rows), Math.max(1, columns), BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+
         // DRAW IMAGE: different colors of quadrants are used here dependent on the fact,
         // in as much each of both rules contributed to the result of the logical OR operation.
         // (hence the name of the generator: WhoWins).
-        Graphics2D g2d = image.createGraphics();
         for(int k = 0; k < units.length; k++){
-            int x = k*size;
             for(int l = 0; l < units[k].length; l++){
-                int y = l*size;
                 if(units[k][l].getState() == true){
                     if(operator == Operators.OR){
                         //First rule is true and second rule is false
                         if((units[k][l].getRule1() == true) && (units[k][l].getRule2() == false)){
                             // Paint a cyan rectangle
-                            g2d.setColor(Color.CYAN);
-                            g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                            pixels[l*rows + k] = Color.CYAN.getRGB();
                         //First rule is false and second rule is true
                         } else if((units[k][l].getRule1() == false) && (units[k][l].getRule2() == true)){
                            // Paint a magenta rectangle
-                            g2d.setColor(Color.MAGENTA);
-                            g2d.fill(new Rectangle2D.Double(x, y, size, size)); 
+                            pixels[l*rows + k] = Color.MAGENTA.getRGB();
                         } else { // 
                             // Both rules are true
                             // Paint a blue rectangle
-                            g2d.setColor(Color.BLUE);
-                            g2d.fill(new Rectangle2D.Double(x, y, size, size)); 
+                            pixels[l*rows + k] = Color.BLUE.getRGB();
                         }
                     } else { // operator == Operators.AND and cells[i][j].getState() == true
                     // Paint a blue rectangle
-                    g2d.setColor(Color.BLUE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                    pixels[l*rows + k] = Color.BLUE.getRGB();
                     }
                 }else { //(cells[k][l].getState() == false)
                     // Paint a white rectangle
-                    g2d.setColor(Color.WHITE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                    pixels[l*rows + k] = Color.WHITE.getRGB();
                 }  
                 
             }
         }
-        g2d.dispose();
-        if(currentGeneration == generations - 1){
-            updateStatus(GeneratorStatusType.FINISHED);
-        }
+        event.commit(name, currentGeneration, rows, columns);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
         return image;
     }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        long positive = 0;
+        long rule1 = 0;
+        long rule2 = 0;
+        for(int k = 0; k < rows; k++){
+            for(int l = 0; l < columns; l++){
+                if(units[k][l].getState()) positive++;
+                if(units[k][l].getRule1()) rule1++;
+                if(units[k][l].getRule2()) rule2++;
+            }
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("true", positive);
+        statistics.put("false", (long)rows*columns - positive);
+        statistics.put("rule1", rule1);
+        statistics.put("rule2", rule2);
+        return statistics;
+    }
     
     // Combining both rules is dependent on the setting of the operator-variable.
     private boolean applyBothRules(boolean a, boolean b, boolean c){
@@ -310,14 +404,14 @@ public class WhoWins extends Observable implements IGenerator{
     
      @Override
     public void save() {
-        updateStatus(GeneratorStatusType.SAVE);
-        this.saveService.saveBufferedImage("new", this.generate());
-        updateStatus(GeneratorStatusType.FINISHED);
+        channels.updateStatus(GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", ImageZoom.zoom(this.render(), size), channels.getMetrics()::recordSave);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
     }
 
     @Override
     public String getStatus() {
-        return this.generatorStatus.toString();
+        return channels.getStatus().toString();
     }
     
        private void showDialog() {
@@ -328,11 +422,12 @@ public class WhoWins extends Observable implements IGenerator{
         JSpinner widthHeightSpinner = new JSpinner(widthHeightModel);
         JSpinner sizeSpinner = new JSpinner(sizeModel);
         
-        JComboBox startCombo = new JComboBox(StartConfig.values());
-        JComboBox rule1Combo = new JComboBox(Rules.values());
-        JComboBox rule2Combo = new JComboBox(Rules.values());
+        JComboBox<StartConfig> startCombo = new JComboBox<>(StartConfig.values());
+        JComboBox<Rules> rule1Combo = new JComboBox<>(Rules.values());
+        JComboBox<Rules> rule2Combo = new JComboBox<>(Rules.values());
         
-        JComboBox operatorsCombo = new JComboBox(Operators.values());
+        JComboBox<Operators> operatorsCombo = new JComboBox<>(Operators.values());
+        JComboBox<Boundary> boundaryCombo = new JComboBox<>(Boundary.values());
         
         JButton generateButton = new JButton("Generate");
         JButton cancelButton = new JButton("Cancel");
@@ -352,6 +447,8 @@ public class WhoWins extends Observable implements IGenerator{
                     new JLabel("1.Rule No.:"),
                     rule1Combo,
                     operatorsCombo,
+                    new JLabel("Boundary:"),
+                    boundaryCombo,
                     new JLabel("2.Rule No.:"),
                     rule2Combo,
                     generateButton,
@@ -365,7 +462,7 @@ public class WhoWins extends Observable implements IGenerator{
             public void windowClosing(WindowEvent e) {
                 setupDialog.dispose();
                 setupDialogIsOpen = false;
-                updateStatus(GeneratorStatusType.UNCONFIGURED);
+                channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
             }
         });
 
@@ -373,7 +470,7 @@ public class WhoWins extends Observable implements IGenerator{
         cancelButton.addActionListener((ActionEvent e) -> {
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.UNCONFIGURED);
+            channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
         });
 
         generateButton.addActionListener((ActionEvent e) -> {
@@ -386,10 +483,11 @@ public class WhoWins extends Observable implements IGenerator{
             this.Rule1 = (Rules)rule1Combo.getSelectedItem();
             this.Rule2 = (Rules)rule2Combo.getSelectedItem();
             this.operator = (Operators)operatorsCombo.getSelectedItem();
+            this.boundary = (Boundary)boundaryCombo.getSelectedItem();
             
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.READY);
+            channels.updateStatus(GeneratorStatusType.READY);
         });
 
         setupDialog.setModal(false);
@@ -400,11 +498,93 @@ public class WhoWins extends Observable implements IGenerator{
     @Override
     public void setup() {
         if (!setupDialogIsOpen) {
-            updateStatus(GeneratorStatusType.SETUP);
+            channels.updateStatus(GeneratorStatusType.SETUP);
             showDialog();
         }
     }
 
+    @Override
+    public synchronized void checkpoint(String filename) throws IOException {
+        if(random == null){
+            throw new IllegalStateException("There is no run to write a checkpoint of");
+        }
+        // One plane for the state and one for the result of each rule
+        new Snapshot(this, random.getSeed(), rows, columns)
+                .addPlane(1, (int row, int column) -> units[row][column].getState() ? 1 : 0)
+                .addPlane(1, (int row, int column) -> units[row][column].getRule1() ? 1 : 0)
+                .addPlane(1, (int row, int column) -> units[row][column].getRule2() ? 1 : 0)
+                .write(new File(filename));
+    }
+
+    @Override
+    public synchronized void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 3);
+        applyParameters(snapshot.getParameters());
+        if(snapshot.getRows() != this.height/size || snapshot.getColumns() != this.width/size){
+            throw new IOException("The grid of the snapshot does not match its parameters");
+        }
+        rows = snapshot.getRows();
+        columns = snapshot.getColumns();
+        if(units == null || units.length != rows || rows == 0 || units[0].length != columns){
+            units = new Unit[rows][columns];
+            line = new int[columns + 2];
+            for(int i = 0; i < rows; i++){
+                for(int j = 0; j < columns; j++){
+                    units[i][j] = new Unit(false, false, false);
+                }
+            }
+        }
+        snapshot.readPlane(0, (int row, int column, int value) -> units[row][column].setState(value == 1));
+        snapshot.readPlane(1, (int row, int column, int value) -> units[row][column].setRule1(value == 1));
+        snapshot.readPlane(2, (int row, int column, int value) -> units[row][column].setRule2(value == 1));
+        generations = units.length;
+        currentGeneration = snapshot.getGeneration();
+        random = new RandomFill(snapshot.getSeed());
+        setCurrentRule1();
+        setCurrentRule2();
+        restored = true;
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        applyParameters(parameters);
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    private void applyParameters(Properties parameters) {
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        this.size = Integer.parseInt(parameters.getProperty("quadrat", String.valueOf(this.size)));
+
+        this.startConf = StartConfig.valueOf(parameters.getProperty("start", this.startConf.name()).toUpperCase());
+
+        this.Rule1 = Rules.parse(parameters.getProperty("rule1", this.Rule1.name()));
+        this.Rule2 = Rules.parse(parameters.getProperty("rule2", this.Rule2.name()));
+        this.operator = Operators.valueOf(parameters.getProperty("operator", this.operator.name()).toUpperCase());
+        this.boundary = Boundary.parse(parameters.getProperty("boundary", this.boundary.name()));
+        String seedValue = parameters.getProperty("seed", (this.seed != null) ? String.valueOf(this.seed) : "");
+        this.seed = seedValue.isEmpty() ? null : Long.valueOf(seedValue);
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        parameters.setProperty("quadrat", String.valueOf(this.size));
+        parameters.setProperty("start", this.startConf.name());
+        parameters.setProperty("rule1", this.Rule1.name());
+        parameters.setProperty("rule2", this.Rule2.name());
+        parameters.setProperty("operator", this.operator.name());
+        parameters.setProperty("boundary", this.boundary.name());
+        if(this.seed != null){
+            parameters.setProperty("seed", String.valueOf(this.seed));
+        }
+        return parameters;
+    }
+
     @Override
     public String getName() {
         return this.name;
@@ -415,21 +595,43 @@ public class WhoWins extends Observable implements IGenerator{
         this.name = name;
     }
 
-    /**
-     * Updates the generator status and notifies all registered observer that
-     * the status has changed.
-     *
-     * @param newGeneratorStatusValue The new status for this generator
-     */
-    private void updateStatus(GeneratorStatusType newGeneratorStatusValue) {
-        this.generatorStatus = newGeneratorStatusValue;
-        //Notify Observers
-        setChanged();
-        notifyObservers();
-    }
-
     @Override
     public int getGenerations() {
         return generations;
     }
+
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public int getQuadratSize() {
+        return size;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
 }
@@ -16,4 +16,18 @@ public enum Rules {
             default: throw new IllegalArgumentException();
         }
     }
+    
+    /**
+     *
+     * @param value Either the name of the constant (RULE30) or the rule number (30)
+     * @return The matching rule
+     */
+    public static Rules parse(String value){
+        for(Rules rule : values()){
+            if(rule.name().equalsIgnoreCase(value) || rule.toString().equals(value)){
+                return rule;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rule: " + value);
+    }
 }
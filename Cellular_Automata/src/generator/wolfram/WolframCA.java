@@ -1,16 +1,35 @@
 
 package generator.wolfram;
 
+import generator.Boundary;
+import generator.CycleDetector;
+import generator.GenerationFrame;
+import generator.GenerationPublisher;
+import generator.GenerationStatistics;
+import generator.GeneratorChannels;
+import generator.GeneratorMetrics;
 import generator.IGenerator;
+import generator.IStatusListener;
+import generator.InitializeEvent;
+import generator.RandomFill;
+import generator.RenderEvent;
+import generator.Snapshot;
+import generator.StepEvent;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.Observable;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
@@ -19,11 +38,12 @@ import javax.swing.JSpinner;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
 import services.IBufferedImageSaveService;
+import services.ImageZoom;
 
 /**Implementation of a Wolfram's elementary cellular automaton as a generator.
  * This one-dimensional cellular automaton has been modelled as a two dimensional array.
  * The following configuration has been used:
- *      - the edges are fixed,
+ *      - the edges are fixed, toroidal or reflective (see Boundary),
  *      - the user can choose the width/height of the image as well as
  *        the size of the quadrants which will be drawn.
  *      The following game parameters are choosable:
@@ -31,16 +51,18 @@ import services.IBufferedImageSaveService;
  *        or with randomly distributed black cells in the first lane,
  *      - the rules, which can get applied: there are five ruleset among which the user
  *        can choose (rule 30, rule 90, rule 110, rule 190 and rule 222).
+ * Once a lane repeats an earlier one, the remaining lanes are copied from the
+ * cycle and the status is STABLE, unless cycles=run.
  */
 
-public class WolframCA extends Observable implements IGenerator{
+public class WolframCA implements IGenerator{
     
     private int height = 600;
     private int width = 600;
     private int size = 10; // size of the quadrat in pixels
     
     private boolean setupDialogIsOpen = false; //Semaphore for displaying the setup dialog only once
-    private GeneratorStatusType generatorStatus;
+    private final GeneratorChannels channels = new GeneratorChannels(this);
     private final IBufferedImageSaveService saveService;
     private String name = "WolframCAGenerator";
     
@@ -65,6 +87,13 @@ public class WolframCA extends Observable implements IGenerator{
     private int rows;
     private int columns;
     private int [][] cells;
+    private int [] line; // the previous generation with a ghost cell at each end
+    private Boundary boundary = Boundary.FIXED;
+    private boolean restored = false; // the next reset keeps the grid of a restored checkpoint
+    private final CycleDetector cycles = new CycleDetector(CycleDetector.DEFAULT_PERIODS);
+    private boolean skipCycles = true; // copy the remaining lanes once a lane repeats itself
+    private Long seed = null; // seed of the start configuration, null for a new one every run
+    private RandomFill random; // random numbers of the current run
     
     private int generations;
     private int currentGeneration = 0;
@@ -91,12 +120,37 @@ public class WolframCA extends Observable implements IGenerator{
 
     @Override
     public BufferedImage initialize(){
-        updateStatus(GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+        reset();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+    
+    @Override
+    public BufferedImage generate(){
+        step();
+        return channels.publish(currentGeneration, render(), this::getStatistics);
+    }
+
+    @Override
+    public synchronized void reset(){
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        channels.getMetrics().startRun();
+        InitializeEvent event = new InitializeEvent();
+        event.begin();
+        if(restored){
+            restored = false;
+            watchCycles(currentGeneration - 1);
+            channels.getMetrics().recordPopulation(population(currentGeneration - 1));
+            event.commit(name, currentGeneration, rows, columns);
+            return;
+        }
         
         rows = (int)this.height/size;
         columns = (int)this.width/size;
-        cells = new int[rows][columns];
+        // Keep the buffer of the last run if the dimensions did not change
+        if(cells == null || cells.length != rows || rows == 0 || cells[0].length != columns){
+            cells = new int[rows][columns];
+            line = new int[columns + 2];
+        }
         
         generations = cells.length;
          // STARTCONFIGURATION
@@ -107,11 +161,10 @@ public class WolframCA extends Observable implements IGenerator{
             } 
         }
         // Fill cells of the first column randomly with ones
+        random = new RandomFill((seed != null) ? seed : new SplittableRandom().nextLong());
         if(startConf == StartConfig.RANDOM){
-          for(int j = 0; j < columns; j++){
-               int number =(Math.random() < 0.5)?0:1; 
-                cells[0][j] = number;
-            }      
+            random.fill(1, (int row, SplittableRandom rowRandom)
+                    -> RandomFill.fill(cells[row], 0, columns, rowRandom, 0.5));
         }
         else{ //Default start situation:  Fill the middle cell of the first column with 1
             int middle = (int)columns/2;
@@ -119,72 +172,140 @@ public class WolframCA extends Observable implements IGenerator{
         }
         currentGeneration = 1;
         setCurrentRule();
-        
-        // DRAW IMAGE
-        Graphics2D g2d = image.createGraphics();
-        for(int k = 0; k < cells.length; k++){
-            int x = k*size;
-            for(int l = 0; l < cells[k].length; l++){
-                int y = l*size;
-                if(cells[k][l] == 1){
-                    // Paint a black rectangle
-                    g2d.setColor(Color.BLACK);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                }
-                else {// Paint a white rectangle
-                    g2d.setColor(Color.WHITE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
-                }  
-                
-            }
-        }
-        g2d.dispose();
-        return image;   
+        watchCycles(0);
+        channels.getMetrics().recordPopulation(population(currentGeneration - 1));
+        event.commit(name, currentGeneration, rows, columns);
     }
-    
+
     @Override
-    public BufferedImage generate(){
-        updateStatus(GeneratorStatusType.CALCULATE);
-        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+    public synchronized void step(){
+        channels.updateStatus(GeneratorStatusType.CALCULATE);
+        long start = System.nanoTime();
+        StepEvent event = new StepEvent();
+        event.begin();
         
         // ALGORITHM: Wolfram's elementary cellular automaton.
         int i = currentGeneration;
-          for(int j = 1; j < columns - 1; j++){
-                int left   = cells[i-1][j-1];
-                int me = cells[i-1][j];
-                int right  = cells[i-1][j+1];
+        System.arraycopy(cells[i-1], 0, line, 1, columns);
+        boundary.pad(line);
+        int first = boundary.first();
+        long hash = 0; // XOR of the keys of the living cells of the lane, see CycleDetector
+        long black = 0;
+          for(int j = first; j < columns - first; j++){
+                int left   = line[j];
+                int me = line[j+1];
+                int right  = line[j+2];
                 
                 int newstate = rules(left,me,right);
                 cells[i][j] = newstate;
+                if(newstate == 1){
+                    hash ^= CycleDetector.key(j);
+                    black++;
+                }
           }
+          channels.getMetrics().recordPopulation(black);
+          channels.getMetrics().recordStep(System.nanoTime() - start, columns);
+          event.commit(name, currentGeneration + 1, rows, columns, this::changedCells);
           if(currentGeneration < generations - 1){
               currentGeneration++;
+              if(skipCycles && skipCycle(i, hash)){
+                  return;
+              }
           }
+        if(currentGeneration == generations - 1){
+            channels.updateStatus(GeneratorStatusType.FINISHED);
+        }
+    }
+
+    // Cells of the line of the last step that differ from the line before
+    private long changedCells(){
+        int i = currentGeneration;
+        long changed = 0;
+        for(int j = 0; j < columns; j++){
+            if(cells[i][j] != cells[i-1][j]){
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // Set cells of line i
+    private long population(int i){
+        long population = 0;
+        for(int j = 0; j < columns; j++){
+            if(cells[i][j] == 1){
+                population++;
+            }
+        }
+        return population;
+    }
+
+    // Starts looking for cycles with the given lane
+    private void watchCycles(int lane){
+        long hash = 0;
+        for(int j = 0; j < columns; j++){
+            if(cells[lane][j] == 1){
+                hash ^= CycleDetector.key(j);
+            }
+        }
+        cycles.clear();
+        cycles.add(lane, hash);
+    }
+
+    // Copies the remaining lanes if the given one repeats an earlier one
+    private boolean skipCycle(int lane, long hash){
+        int period = cycles.add(lane, hash);
+        if(period == 0 || currentGeneration == generations - 1){
+            return false;
+        }
+        for(int k = lane + 1; k < generations - 1; k++){
+            System.arraycopy(cells[k - period], 0, cells[k], 0, columns);
+        }
+        currentGeneration = generations - 1;
+        channels.updateStatus(GeneratorStatusType.STABLE);
+        return true;
+    }
+
+    @Override
+    public BufferedImage render(){
+        long start = System.nanoTime();
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        // A pixel per cell, row k of the grid is the column x = k of the image
+        BufferedImage image = new BufferedImage(Math.max(1, rows), Math.max(1, columns), BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
         
         // DRAW IMAGE
-        Graphics2D g2d = image.createGraphics();
         for(int k = 0; k < cells.length; k++){
-            int x = k*size;
             for(int l = 0; l < cells[k].length; l++){
-                int y = l*size;
                 if(cells[k][l] == 1){
                     // Paint a black rectangle
-                    g2d.setColor(Color.BLACK);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                    pixels[l*rows + k] = Color.BLACK.getRGB();
                 }
                 else {// Paint a white rectangle
-                    g2d.setColor(Color.WHITE);
-                    g2d.fill(new Rectangle2D.Double(x, y, size, size));
+                    pixels[l*rows + k] = Color.WHITE.getRGB();
                 }  
                 
             }
         }
-        g2d.dispose();
-        if(currentGeneration == generations - 1){
-            updateStatus(GeneratorStatusType.FINISHED);
-        }
+        event.commit(name, currentGeneration, rows, columns);
+        channels.getMetrics().recordRender(System.nanoTime() - start);
         return image;
     }
+
+    @Override
+    public Map<String, Long> getStatistics() {
+        long black = 0;
+        for(int k = 0; k < rows; k++){
+            for(int l = 0; l < columns; l++){
+                black += cells[k][l];
+            }
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("black", black);
+        statistics.put("white", (long)rows*columns - black);
+        return statistics;
+    }
     
    private int rules(int a, int b, int c){
         if      (a == 1 && b == 1 && c == 1) return currentRule[0];
@@ -222,14 +343,14 @@ public class WolframCA extends Observable implements IGenerator{
     
      @Override
     public void save() {
-        updateStatus(GeneratorStatusType.SAVE);
-        this.saveService.saveBufferedImage("new", this.generate());
-        updateStatus(GeneratorStatusType.FINISHED);
+        channels.updateStatus(GeneratorStatusType.SAVE);
+        this.saveService.saveBufferedImage("new", ImageZoom.zoom(this.render(), size), channels.getMetrics()::recordSave);
+        channels.updateStatus(GeneratorStatusType.FINISHED);
     }
 
     @Override
     public String getStatus() {
-        return this.generatorStatus.toString();
+        return channels.getStatus().toString();
     }
     
        private void showDialog() {
@@ -240,8 +361,10 @@ public class WolframCA extends Observable implements IGenerator{
         JSpinner widthHeightSpinner = new JSpinner(widthHeightModel);
         JSpinner sizeSpinner = new JSpinner(sizeModel);
        
-        JComboBox startCombo = new JComboBox(StartConfig.values());
-        JComboBox rulesCombo = new JComboBox(Rules.values());
+        JComboBox<StartConfig> startCombo = new JComboBox<>(StartConfig.values());
+        JComboBox<Rules> rulesCombo = new JComboBox<>(Rules.values());
+        JComboBox<Boundary> boundaryCombo = new JComboBox<>(Boundary.values());
+        JCheckBox skipCheckBox = new JCheckBox("Stop at cycles", this.skipCycles);
  
         JButton generateButton = new JButton("Generate");
         JButton cancelButton = new JButton("Cancel");
@@ -260,6 +383,9 @@ public class WolframCA extends Observable implements IGenerator{
                     startCombo,
                     new JLabel("Rule No.:"),
                     rulesCombo,
+                    new JLabel("Boundary:"),
+                    boundaryCombo,
+                    skipCheckBox,
                     generateButton,
                     cancelButton},
                 null);
@@ -271,7 +397,7 @@ public class WolframCA extends Observable implements IGenerator{
             public void windowClosing(WindowEvent e) {
                 setupDialog.dispose();
                 setupDialogIsOpen = false;
-                updateStatus(GeneratorStatusType.UNCONFIGURED);
+                channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
             }
         });
 
@@ -279,7 +405,7 @@ public class WolframCA extends Observable implements IGenerator{
         cancelButton.addActionListener((ActionEvent e) -> {
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.UNCONFIGURED);
+            channels.updateStatus(GeneratorStatusType.UNCONFIGURED);
         });
 
         generateButton.addActionListener((ActionEvent e) -> {
@@ -289,10 +415,12 @@ public class WolframCA extends Observable implements IGenerator{
 
             this.startConf = (StartConfig)startCombo.getSelectedItem();
             this.Rule = (Rules)rulesCombo.getSelectedItem();
+            this.boundary = (Boundary)boundaryCombo.getSelectedItem();
+            this.skipCycles = skipCheckBox.isSelected();
     
             setupDialogIsOpen = false;
             setupDialog.dispose();
-            updateStatus(GeneratorStatusType.READY);
+            channels.updateStatus(GeneratorStatusType.READY);
         });
 
         setupDialog.setModal(false);
@@ -303,11 +431,83 @@ public class WolframCA extends Observable implements IGenerator{
     @Override
     public void setup() {
         if (!setupDialogIsOpen) {
-            updateStatus(GeneratorStatusType.SETUP);
+            channels.updateStatus(GeneratorStatusType.SETUP);
             showDialog();
         }
     }
 
+    @Override
+    public synchronized void checkpoint(String filename) throws IOException {
+        if(random == null){
+            throw new IllegalStateException("There is no run to write a checkpoint of");
+        }
+        new Snapshot(this, random.getSeed(), rows, columns)
+                .addPlane(1, (int row, int column) -> cells[row][column])
+                .write(new File(filename));
+    }
+
+    @Override
+    public synchronized void restore(String filename) throws IOException {
+        Snapshot snapshot = Snapshot.read(new File(filename));
+        snapshot.check(this, 1);
+        applyParameters(snapshot.getParameters());
+        if(snapshot.getRows() != this.height/size || snapshot.getColumns() != this.width/size){
+            throw new IOException("The grid of the snapshot does not match its parameters");
+        }
+        rows = snapshot.getRows();
+        columns = snapshot.getColumns();
+        if(cells == null || cells.length != rows || rows == 0 || cells[0].length != columns){
+            cells = new int[rows][columns];
+            line = new int[columns + 2];
+        }
+        snapshot.readPlane(0, (int row, int column, int value) -> cells[row][column] = value);
+        generations = cells.length;
+        currentGeneration = snapshot.getGeneration();
+        random = new RandomFill(snapshot.getSeed());
+        setCurrentRule();
+        restored = true;
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    @Override
+    public void configure(Properties parameters) {
+        applyParameters(parameters);
+        channels.updateStatus(GeneratorStatusType.READY);
+    }
+
+    private void applyParameters(Properties parameters) {
+        this.width = Integer.parseInt(parameters.getProperty("width", String.valueOf(this.width)));
+        this.height = Integer.parseInt(parameters.getProperty("height", String.valueOf(this.height)));
+        this.size = Integer.parseInt(parameters.getProperty("quadrat", String.valueOf(this.size)));
+
+        this.startConf = StartConfig.valueOf(parameters.getProperty("start", this.startConf.name()).toUpperCase());
+        this.Rule = Rules.parse(parameters.getProperty("rule", this.Rule.name()));
+        this.boundary = Boundary.parse(parameters.getProperty("boundary", this.boundary.name()));
+        String repeat = parameters.getProperty("cycles", this.skipCycles ? "skip" : "run");
+        if(!repeat.equals("skip") && !repeat.equals("run")){
+            throw new IllegalArgumentException("Unknown cycles: " + repeat);
+        }
+        this.skipCycles = repeat.equals("skip");
+        String seedValue = parameters.getProperty("seed", (this.seed != null) ? String.valueOf(this.seed) : "");
+        this.seed = seedValue.isEmpty() ? null : Long.valueOf(seedValue);
+    }
+
+    @Override
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("width", String.valueOf(this.width));
+        parameters.setProperty("height", String.valueOf(this.height));
+        parameters.setProperty("quadrat", String.valueOf(this.size));
+        parameters.setProperty("start", this.startConf.name());
+        parameters.setProperty("rule", this.Rule.name());
+        parameters.setProperty("boundary", this.boundary.name());
+        parameters.setProperty("cycles", this.skipCycles ? "skip" : "run");
+        if(this.seed != null){
+            parameters.setProperty("seed", String.valueOf(this.seed));
+        }
+        return parameters;
+    }
+
     @Override
     public String getName() {
         return this.name;
@@ -318,23 +518,45 @@ public class WolframCA extends Observable implements IGenerator{
         this.name = name;
     }
 
-    /**
-     * Updates the generator status and notifies all registered observer that
-     * the status has changed.
-     *
-     * @param newGeneratorStatusValue The new status for this generator
-     */
-    private void updateStatus(GeneratorStatusType newGeneratorStatusValue) {
-        this.generatorStatus = newGeneratorStatusValue;
-        //Notify Observers
-        setChanged();
-        notifyObservers();
-    }
-
     @Override
     public int getGenerations() {
         return generations;
     }
+
+    @Override
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    public int getQuadratSize() {
+        return size;
+    }
+
+    @Override
+    public GeneratorMetrics getMetrics() {
+        return channels.getMetrics();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationFrame> getFramePublisher() {
+        return channels.getFramePublisher();
+    }
+
+    @Override
+    public GenerationPublisher<GenerationStatistics> getStatisticsPublisher() {
+        return channels.getStatisticsPublisher();
+    }
+
+    @Override
+    public void addStatusListener(IStatusListener listener, Executor executor) {
+        channels.addStatusListener(listener, executor);
+    }
+
+    @Override
+    public void removeStatusListener(IStatusListener listener) {
+        channels.removeStatusListener(listener);
+    }
     
     public void setCurrentGeneration(int cg) {
         currentGeneration = cg;
@@ -1,29 +1,69 @@
 package gui;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 
 
 public class BufferedImageDisplayPanel extends JPanel {
 
+    private static final int MIN_BORDER_ZOOM = 4; // smaller quadrats would be covered by their borders
+    private static final Color BORDER_COLOR = new Color(128, 128, 128, 96);
+
     private BufferedImage image;
+    private int zoom = 1; // pixels on the screen per pixel of the image
+    private boolean cellBorders = false;
+    private volatile boolean painted = true; // the current image has been painted at least once
 
     public BufferedImageDisplayPanel() {
         super();
     }
 
-    public void setImage(BufferedImage image) {
+    public boolean setImage(BufferedImage image) {
+        return setImage(image, this.zoom);
+    }
+
+    /**
+     * Shows an image with a pixel per cell, enlarged while painting.
+     *
+     * @param image The image of a generation
+     * @param zoom Size of the quadrat of a cell in pixels
+     * @return True if the image replaced one that was never painted, i.e. a
+     * frame was dropped
+     */
+    public boolean setImage(BufferedImage image, int zoom) {
+        boolean dropped = !this.painted;
+        this.painted = false;
         this.image = image;
-        this.setSize(image.getWidth(), image.getHeight());
+        this.zoom = Math.max(1, zoom);
+        this.setSize(image.getWidth() * this.zoom, image.getHeight() * this.zoom);
         super.repaint();
+        return dropped;
     }
 
     public BufferedImage getImage() {
         return this.image;
     }
 
+    public int getZoom() {
+        return this.zoom;
+    }
+
+    /**
+     *
+     * @param cellBorders True for drawing the borders of the cells over the
+     * image, once the quadrats are large enough
+     */
+    public void setCellBorders(boolean cellBorders) {
+        this.cellBorders = cellBorders;
+        super.repaint();
+    }
+
     @Override
     public Dimension getPreferredSize() {
         return new Dimension(getWidth(), getHeight());
@@ -32,8 +72,34 @@ public class BufferedImageDisplayPanel extends JPanel {
     @Override
     public void paintComponent(final Graphics g) {
         super.paintComponent(g);
-        if (image != null) {
-            g.drawImage(image, 0, 0, image.getWidth(), image.getHeight(), null);
+        BufferedImage current = image;
+        if (current == null) {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        //Only the cells within the visible part of the scroll pane are scaled
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, current.getWidth() * zoom, current.getHeight() * zoom);
+        }
+        int x0 = Math.max(0, clip.x / zoom);
+        int y0 = Math.max(0, clip.y / zoom);
+        int x1 = Math.min(current.getWidth(), (clip.x + clip.width + zoom - 1) / zoom);
+        int y1 = Math.min(current.getHeight(), (clip.y + clip.height + zoom - 1) / zoom);
+        if (x0 < x1 && y0 < y1) {
+            painted = true;
+            g2d.drawImage(current, x0 * zoom, y0 * zoom, x1 * zoom, y1 * zoom, x0, y0, x1, y1, null);
+            if (cellBorders && zoom >= MIN_BORDER_ZOOM) {
+                g2d.setColor(BORDER_COLOR);
+                for (int x = x0; x <= x1; x++) {
+                    g2d.drawLine(x * zoom, y0 * zoom, x * zoom, y1 * zoom);
+                }
+                for (int y = y0; y <= y1; y++) {
+                    g2d.drawLine(x0 * zoom, y * zoom, x1 * zoom, y * zoom);
+                }
+            }
         }
+        g2d.dispose();
     }
 }
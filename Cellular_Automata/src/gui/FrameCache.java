@@ -0,0 +1,208 @@
+package gui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used cache of rendered frames, so that going back and forth
+ * on the timeline does not render a generation again.
+ *
+ * The frames are keyed by the name of the generator, the hash of its
+ * parameters and the generation. A frame with at most 256 colors is stored as
+ * one byte per pixel plus its palette and is expanded into an indexed image
+ * sharing these bytes when it is displayed, other frames keep their ARGB
+ * pixels. The least recently used frames are dropped when the cached frames
+ * take more than the budget.
+ */
+public class FrameCache {
+
+    private final long budget;
+    private long size = 0; // bytes held by the cached frames
+    private final LinkedHashMap<Key, Frame> frames = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor
+     *
+     * @param budget Bytes the cached frames may take
+     */
+    public FrameCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     *
+     * @param generator Name of the generator
+     * @param parameters Hash of the parameters of the generator
+     * @param generation The generation shown by the frame
+     * @return The cached frame, null if it is not cached
+     */
+    public synchronized BufferedImage get(String generator, int parameters, int generation) {
+        Frame frame = frames.get(new Key(generator, parameters, generation));
+        return (frame != null) ? frame.expand() : null;
+    }
+
+    /**
+     * Adds a frame, the least recently used frames are dropped if the budget
+     * is exceeded.
+     *
+     * @param generator Name of the generator
+     * @param parameters Hash of the parameters of the generator
+     * @param generation The generation shown by the frame
+     * @param image The rendered frame
+     */
+    public void put(String generator, int parameters, int generation, BufferedImage image) {
+        //Compact the frame outside of the lock, this is the expensive part
+        Frame frame = Frame.compact(image);
+        if (frame.bytes() > budget) {
+            return;
+        }
+        synchronized (this) {
+            Frame previous = frames.put(new Key(generator, parameters, generation), frame);
+            size += frame.bytes() - ((previous != null) ? previous.bytes() : 0);
+            Iterator<Frame> eldest = frames.values().iterator();
+            while (size > budget && eldest.hasNext()) {
+                size -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all frames of a generator, e.g. when it starts a new run.
+     *
+     * @param generator Name of the generator
+     */
+    public synchronized void invalidate(String generator) {
+        Iterator<Map.Entry<Key, Frame>> entries = frames.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Key, Frame> entry = entries.next();
+            if (entry.getKey().generator.equals(generator)) {
+                size -= entry.getValue().bytes();
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return Bytes held by the cached frames
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Key of a cached frame.
+     */
+    private static class Key {
+
+        private final String generator;
+        private final int parameters;
+        private final int generation;
+
+        Key(String generator, int parameters, int generation) {
+            this.generator = generator;
+            this.parameters = parameters;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return generator.equals(other.generator) && parameters == other.parameters
+                    && generation == other.generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(generator, parameters, generation);
+        }
+    }
+
+    /**
+     * A frame in its compact form.
+     */
+    private static class Frame {
+
+        private final int width;
+        private final int height;
+        private final int[] palette; // null if the frame has more than 256 colors
+        private final byte[] indices;
+        private final int[] pixels;
+
+        private Frame(int width, int height, int[] palette, byte[] indices, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.palette = palette;
+            this.indices = indices;
+            this.pixels = pixels;
+        }
+
+        static Frame compact(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] row = new int[width];
+            int[] palette = new int[256];
+            int colors = 0;
+            byte[] indices = new byte[width * height];
+            int lastColor = 0;
+            int lastIndex = -1;
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int color = row[x];
+                    if (color != lastColor || lastIndex < 0) {
+                        lastColor = color;
+                        lastIndex = -1;
+                        for (int i = 0; i < colors; i++) {
+                            if (palette[i] == color) {
+                                lastIndex = i;
+                                break;
+                            }
+                        }
+                        if (lastIndex < 0) {
+                            if (colors == palette.length) {
+                                //Too many colors for an index, keep the pixels
+                                int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+                                return new Frame(width, height, null, null, pixels);
+                            }
+                            palette[colors] = color;
+                            lastIndex = colors++;
+                        }
+                    }
+                    indices[y * width + x] = (byte) lastIndex;
+                }
+            }
+            return new Frame(width, height, Arrays.copyOf(palette, Math.max(1, colors)), indices, null);
+        }
+
+        BufferedImage expand() {
+            if (palette == null) {
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                image.setRGB(0, 0, width, height, pixels, 0, width);
+                return image;
+            }
+            IndexColorModel colorModel = new IndexColorModel(8, palette.length, palette, 0, true, -1,
+                    DataBuffer.TYPE_BYTE);
+            WritableRaster raster = Raster.createInterleavedRaster(new DataBufferByte(indices, indices.length),
+                    width, height, width, 1, new int[]{0}, null);
+            return new BufferedImage(colorModel, raster, false, null);
+        }
+
+        long bytes() {
+            return (palette != null) ? indices.length + 4L * palette.length : 4L * pixels.length;
+        }
+    }
+}
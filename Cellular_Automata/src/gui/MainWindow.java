@@ -1,41 +1,88 @@
 package gui;
 
+import generator.Backpressure;
+import generator.GenerationFrame;
+import generator.History;
 import generator.IGenerator;
+import generator.IGenerator.GeneratorStatusType;
+import generator.IRewindable;
+import generator.IStatusListener;
+import generator.Snapshot;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.*;
 import javax.swing.border.*;
-import services.IBufferedImageSaveService;
+import javax.swing.event.ChangeEvent;
+import services.ApngRecorder;
+import services.IAsyncBufferedImageSaveService;
+import services.IFrameRecorder;
+import services.ImageZoom;
+import services.PngEncoder;
 
 
-public class MainWindow extends JFrame implements Observer {
+public class MainWindow extends JFrame implements IStatusListener {
+
+    private static final int FRAME_DELAY = 100; // milliseconds between two generations
+    private static final int HISTORY_KEYFRAMES = 50; // generations from one keyframe of the history to the next
+    private static final long HISTORY_BUDGET = 64L << 20; // bytes of history kept in memory per generator
+    private static final long FRAME_CACHE_BUDGET = 256L << 20; // bytes of rendered frames kept for the timeline
+    private static final int RUN_THREADS = Runtime.getRuntime().availableProcessors(); // threads shared by all runs
 
     JMenuBar menubar;
     JPanel statusbarPanel;
-    BufferedImageDisplayPanel centerImagePanel;
+    JTabbedPane runTabs;
     JLabel statusLabel;
-    IGenerator observableGenerator;
+    StatusReadout statusReadout;
 
-    private final IBufferedImageSaveService imageSaveService;
+    private final IAsyncBufferedImageSaveService imageSaveService;
     private final ArrayList<IGenerator> generators;
+    private final FrameCache frameCache = new FrameCache(FRAME_CACHE_BUDGET);
+    private final Map<IGenerator, RunView> views = new HashMap<>(); // a tab per generator that has run
+    private final Map<IGenerator, Run> runs = new ConcurrentHashMap<>(); // the current run per generator
+    private final ScheduledExecutorService runScheduler;
+    private Recording recording; // records the runs of a generator as animation if not null
+    private boolean cellBorders = false;
 
     public MainWindow(
-            IBufferedImageSaveService imageSaveService,
+            IAsyncBufferedImageSaveService imageSaveService,
             ArrayList<IGenerator> generators) {
         this.imageSaveService = imageSaveService;
         this.generators = generators;
+        AtomicInteger count = new AtomicInteger();
+        this.runScheduler = Executors.newScheduledThreadPool(RUN_THREADS, (Runnable r) -> {
+            Thread t = new Thread(r, "generator-run-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
         initUI();
         RegisterGenerators();
     }
 
     private void RegisterGenerators() {
-        //Register as Observer
+        //Register as Listener, the status changes arrive on the event dispatch thread
         generators.forEach((generator) -> {
-            generator.addObserver(this);
+            generator.addStatusListener(this, SwingUtilities::invokeLater);
+            //Record the runs for the timeline
+            if (generator instanceof IRewindable) {
+                ((IRewindable) generator).setHistory(new History(HISTORY_KEYFRAMES, HISTORY_BUDGET));
+            }
         });
     }
 
@@ -44,6 +91,16 @@ public class MainWindow extends JFrame implements Observer {
         setSize(1024, 768);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        //Finish queued saves before the application exits
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                statusReadout.stop();
+                runScheduler.shutdownNow();
+                closeRecording();
+                imageSaveService.shutdown();
+            }
+        });
 
         this.setLayout(new BorderLayout());
 
@@ -56,6 +113,12 @@ public class MainWindow extends JFrame implements Observer {
         statusLabel = new JLabel("");
         statusLabel.setHorizontalAlignment(SwingConstants.LEFT);
         statusbarPanel.add(statusLabel);
+        statusbarPanel.add(Box.createHorizontalGlue());
+        //Throughput of the shown run, sampled at a fixed rate
+        statusReadout = new StatusReadout();
+        statusbarPanel.add(statusReadout);
+        statusbarPanel.add(Box.createHorizontalStrut(8));
+        statusReadout.start();
 
         //Add Menu Bar
         JMenu menu;
@@ -72,8 +135,29 @@ public class MainWindow extends JFrame implements Observer {
         });
         menu.add(menuItem);
 
+        JCheckBoxMenuItem recordMenuItem = new JCheckBoxMenuItem("Record Animation");
+        recordMenuItem.addActionListener((ActionEvent ae) -> {
+            recordMenuItemClicked(recordMenuItem);
+        });
+        menu.add(recordMenuItem);
+
+        menuItem = new JMenuItem("Save Checkpoint");
+        menuItem.addActionListener((ActionEvent ae) -> {
+            checkpointMenuItemClicked();
+        });
+        menu.add(menuItem);
+
+        menuItem = new JMenuItem("Restore Checkpoint");
+        menuItem.addActionListener((ActionEvent ae) -> {
+            restoreMenuItemClicked();
+        });
+        menu.add(menuItem);
+
         menuItem = new JMenuItem("Quit");
         menuItem.addActionListener((ActionEvent event) -> {
+            runScheduler.shutdownNow();
+            closeRecording();
+            imageSaveService.shutdown();
             System.exit(0);
         });
         menu.add(menuItem);
@@ -91,60 +175,356 @@ public class MainWindow extends JFrame implements Observer {
             menu.add(menuItem);
         }
 
+        //MenuBar View
+        menu = new JMenu("View");
+        menubar.add(menu);
+
+        JCheckBoxMenuItem bordersMenuItem = new JCheckBoxMenuItem("Cell Borders");
+        bordersMenuItem.addActionListener((ActionEvent ae) -> {
+            cellBorders = bordersMenuItem.isSelected();
+            views.values().forEach((view) -> {
+                view.getImagePanel().setCellBorders(cellBorders);
+            });
+        });
+        menu.add(bordersMenuItem);
+
         this.setJMenuBar(menubar);
 
-        //Add Center Panel
-        centerImagePanel = new BufferedImageDisplayPanel();
-        centerImagePanel.setBackground(Color.DARK_GRAY);
-        JScrollPane scrollPane = new JScrollPane(centerImagePanel);
-        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
-        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        this.add(scrollPane, BorderLayout.CENTER);
+        //Add a tab per generator, the runs are shown side by side
+        runTabs = new JTabbedPane();
+        runTabs.addChangeListener((ChangeEvent ce) -> {
+            statusReadout.setGenerator(getSelectedGenerator());
+        });
+        this.add(runTabs, BorderLayout.CENTER);
+    }
+
+    private RunView getSelectedView() {
+        return (RunView) runTabs.getSelectedComponent();
+    }
+
+    private IGenerator getSelectedGenerator() {
+        RunView view = getSelectedView();
+        return (view != null) ? view.getGenerator() : null;
     }
 
     private void saveMenuItemClicked(ActionEvent ae) {
         JFileChooser saveFileChooser = new JFileChooser();
         if (saveFileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             String path = saveFileChooser.getSelectedFile().getAbsolutePath();
-            BufferedImage image = GetBufferedImageFromCenterPanel();
-            imageSaveService.saveBufferedImage(path, image);
+            RunView view = getSelectedView();
+            BufferedImage image = (view != null) ? view.getImagePanel().getImage() : null;
+            if (image == null) {
+                return;
+            }
+            //The frame is never modified once displayed, so it is written as is,
+            //enlarged to the quadrats it is displayed with
+            image = ImageZoom.zoom(image, view.getImagePanel().getZoom());
+            statusLabel.setText("Saving " + path);
+            IGenerator generator = view.getGenerator();
+            imageSaveService.saveBufferedImageAsync(path, image, generator.getMetrics()::recordSave)
+                    .whenComplete((file, ex) -> {
+                        SwingUtilities.invokeLater(() -> {
+                            if (ex == null) {
+                                statusLabel.setText("Saved " + file.getAbsolutePath());
+                            } else {
+                                JOptionPane.showMessageDialog(this, "Could not save " + path + ": " + ex.getMessage(),
+                                        "Save", JOptionPane.ERROR_MESSAGE);
+                            }
+                        });
+                    });
         }
     }
 
-    private BufferedImage GetBufferedImageFromCenterPanel() {
-        return centerImagePanel.getImage();
+    private void recordMenuItemClicked(JCheckBoxMenuItem recordMenuItem) {
+        if (!recordMenuItem.isSelected()) {
+            stopRecording();
+            return;
+        }
+        //Only the selected generator is recorded, all frames of an animation have the same size
+        IGenerator generator = getSelectedGenerator();
+        if (generator == null) {
+            JOptionPane.showMessageDialog(this, "Start a generator to record its runs",
+                    "Record Animation", JOptionPane.INFORMATION_MESSAGE);
+            recordMenuItem.setSelected(false);
+            return;
+        }
+        JFileChooser recordFileChooser = new JFileChooser();
+        if (recordFileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            String path = recordFileChooser.getSelectedFile().getAbsolutePath();
+            if (!path.endsWith(".png")) {
+                path += ".png";
+            }
+            stopRecording();
+            recording = new Recording(new ApngRecorder(new File(path), FRAME_DELAY, new PngEncoder()), path, generator);
+            statusLabel.setText("Recording " + generator.getName() + " to " + path);
+        } else {
+            recordMenuItem.setSelected(false);
+        }
     }
 
-    @Override
-    public void update(Observable o, Object o1) {
-        observableGenerator = (IGenerator) o;
-        statusLabel.setText(observableGenerator.getName() + " Status: " + observableGenerator.getStatus()
-        );
-        statusbarPanel.repaint();
-        if (observableGenerator.getStatus().equals("READY")) {
-            //Update Panel with Image
-            centerImagePanel.setImage(observableGenerator.initialize());
-            
-            int gen = observableGenerator.getGenerations();
-            
-            if (!observableGenerator.getStatus().equals("FINISHED")){
-                Thread t = new Thread(new Runnable(){ 
-  
-                    @Override
-                    public void run() {
-                        for(int i = 1; i < gen - 1; i++){
-                            centerImagePanel.setImage(observableGenerator.generate());
-                            try{
-                                Thread.sleep(100);
-                            } catch (InterruptedException ie){
-                                ie.printStackTrace();
-                            }
+    private void checkpointMenuItemClicked() {
+        IGenerator generator = getSelectedGenerator();
+        if (generator == null) {
+            return;
+        }
+        JFileChooser checkpointFileChooser = new JFileChooser();
+        if (checkpointFileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            String path = checkpointFileChooser.getSelectedFile().getAbsolutePath();
+            statusLabel.setText("Writing checkpoint " + path);
+            //Large grids take a while, the checkpoint waits for the current generation on the run threads
+            runScheduler.execute(() -> {
+                try {
+                    generator.checkpoint(path);
+                    SwingUtilities.invokeLater(() -> {
+                        statusLabel.setText("Checkpoint written to " + path);
+                    });
+                } catch (IOException | RuntimeException ex) {
+                    if (!(ex instanceof IOException || ex instanceof IllegalStateException)) {
+                        Logger.getLogger(MainWindow.class.getName()).log(Level.SEVERE, path, ex);
+                    }
+                    SwingUtilities.invokeLater(() -> {
+                        statusLabel.setText("Could not write checkpoint " + path);
+                        JOptionPane.showMessageDialog(this, "Could not write " + path + ": " + ex,
+                                "Save Checkpoint", JOptionPane.ERROR_MESSAGE);
+                    });
+                }
+            });
+        }
+    }
+
+    private void restoreMenuItemClicked() {
+        JFileChooser restoreFileChooser = new JFileChooser();
+        if (restoreFileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            String path = restoreFileChooser.getSelectedFile().getAbsolutePath();
+            statusLabel.setText("Restoring checkpoint " + path);
+            //Large snapshots take a while, the restore waits for the current generation on the run threads
+            runScheduler.execute(() -> {
+                try {
+                    String type = Snapshot.read(new File(path)).getGenerator();
+                    for (IGenerator generator : generators) {
+                        if (generator.getClass().getName().equals(type)) {
+                            //The generator becomes READY and continues the run
+                            generator.restore(path);
+                            SwingUtilities.invokeLater(() -> {
+                                statusLabel.setText("Checkpoint restored from " + path);
+                            });
+                            return;
                         }
                     }
-               }); 
-               t.start();
+                    throw new IOException("No generator for " + type);
+                } catch (IOException | RuntimeException ex) {
+                    if (!(ex instanceof IOException)) {
+                        Logger.getLogger(MainWindow.class.getName()).log(Level.SEVERE, path, ex);
+                    }
+                    SwingUtilities.invokeLater(() -> {
+                        statusLabel.setText("Could not restore checkpoint " + path);
+                        JOptionPane.showMessageDialog(this, "Could not restore " + path + ": " + ex.getMessage(),
+                                "Restore Checkpoint", JOptionPane.ERROR_MESSAGE);
+                    });
+                }
+            });
+        }
+    }
+
+    private void stopRecording() {
+        Recording current = recording;
+        recording = null;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    // Stops the recording and waits for its file, only while the application exits
+    private void closeRecording() {
+        Recording current = recording;
+        stopRecording();
+        if (current != null) {
+            current.awaitClosed();
+        }
+    }
+
+    @Override
+    public void statusChanged(IGenerator generator, GeneratorStatusType status, Set<GeneratorStatusType> published) {
+        RunView view = views.get(generator);
+        if (published.contains(GeneratorStatusType.READY)) {
+            //Show the run in the tab of the generator
+            if (view == null) {
+                view = new RunView(generator, frameCache);
+                view.getImagePanel().setCellBorders(cellBorders);
+                views.put(generator, view);
+                runTabs.addTab(generator.getName(), view);
+            }
+            runTabs.setSelectedComponent(view);
+            view.startRun();
+            //A new run replaces the current run of the generator, the others go on
+            Run run = new Run(generator, view);
+            Run previous = runs.put(generator, run);
+            if (previous != null) {
+                previous.cancel();
+            }
+            runScheduler.execute(run);
+        }
+        //Every tab shows the status of its own generator, the status bar only of one without a tab
+        if (view != null) {
+            view.showStatus(status);
+        } else {
+            statusLabel.setText(generator.getName() + " Status: " + status);
+            statusbarPanel.repaint();
+        }
+    }
+
+    // A run of a generator on the shared pool. Every turn calculates one
+    // generation and schedules the next one, so the runs take turns on the
+    // threads of the pool instead of holding a thread each.
+    private final class Run implements Runnable {
+
+        private final IGenerator generator;
+        private final RunView view;
+        private volatile boolean cancelled = false;
+        private boolean initialized = false;
+        private int generations;
+
+        Run(IGenerator generator, RunView view) {
+            this.generator = generator;
+            this.view = view;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            BufferedImage image;
+            int generation;
+            boolean finished;
+            //A turn of a cancelled run never overlaps with the next run of the generator
+            synchronized (generator) {
+                if (cancelled) {
+                    return;
+                }
+                boolean first = !initialized;
+                try {
+                    if (first) {
+                        initialized = true;
+                        image = generator.initialize(); // published to the view and the recording
+                        generations = generator.getGenerations();
+                    } else {
+                        image = generator.generate();
+                    }
+                } catch (RuntimeException ex) {
+                    Logger.getLogger(MainWindow.class.getName()).log(Level.SEVERE, generator.getName(), ex);
+                    runs.remove(generator, this);
+                    return;
+                }
+                generation = generator.getCurrentGeneration();
+                //A restored generator continues with the generation of its checkpoint
+                finished = (first && GeneratorStatusType.valueOf(generator.getStatus()) == GeneratorStatusType.FINISHED)
+                        || generation >= generations - 1;
+            }
+            view.cacheFrame(generation, image);
+            if (finished) {
+                runs.remove(generator, this);
+                return;
+            }
+            try {
+                runScheduler.schedule(this, FRAME_DELAY, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                //The window is closing
+            }
+        }
+    }
+
+    // Records the frames of one generator into an animation, all calls but
+    // the constructor, stop and awaitClosed are made on the recording thread.
+    // A full buffer drops the oldest frame rather than stalling the shared
+    // run threads, the drops are counted by the metrics of the generator.
+    private final class Recording implements Flow.Subscriber<GenerationFrame> {
+
+        private static final int BUFFER = 256; // frames waiting for the recorder
+
+        private final IFrameRecorder recorder;
+        private final String path;
+        private final IGenerator generator;
+        private final int zoom;
+        private final ExecutorService executor = Executors.newSingleThreadExecutor();
+        private Flow.Subscription subscription;
+        private Exception failure; // the first frame or close that failed
+
+        Recording(IFrameRecorder recorder, String path, IGenerator generator) {
+            this.recorder = recorder;
+            this.path = path;
+            this.generator = generator;
+            this.zoom = generator.getQuadratSize();
+            generator.getFramePublisher().subscribe(this, Backpressure.DROP_OLDEST, BUFFER, executor);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(GenerationFrame frame) {
+            try {
+                recorder.recordFrame(ImageZoom.zoom(frame.getImage(), zoom));
+            } catch (IOException | RuntimeException ex) {
+                Logger.getLogger(MainWindow.class.getName()).log(Level.SEVERE, path, ex);
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            Logger.getLogger(MainWindow.class.getName()).log(Level.SEVERE, path, throwable);
+            close();
+        }
+
+        @Override
+        public void onComplete() {
+            close();
+        }
+
+        // Closes the recorder after the last frame and reports the file on the event dispatch thread
+        private void close() {
+            try {
+                recorder.close();
+            } catch (IOException ex) {
+                Logger.getLogger(MainWindow.class.getName()).log(Level.SEVERE, path, ex);
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+            executor.shutdown();
+            Exception error = failure;
+            SwingUtilities.invokeLater(() -> {
+                if (error == null) {
+                    statusLabel.setText("Recorded " + generator.getName() + " to " + path);
+                } else {
+                    statusLabel.setText("Could not record " + path);
+                    JOptionPane.showMessageDialog(MainWindow.this, "Could not record " + path + ": " + error,
+                            "Record Animation", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        }
+
+        // Takes no more frames, the frames taken so far are still recorded
+        // before the recorder is closed. Never waits for the recording thread.
+        void stop() {
+            generator.getFramePublisher().complete(this);
+        }
+
+        // Waits for the recorder to be closed, only while the application exits
+        void awaitClosed() {
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
         }
     }
-    
 }
@@ -0,0 +1,189 @@
+package gui;
+
+import generator.Backpressure;
+import generator.GenerationFrame;
+import generator.History;
+import generator.IGenerator;
+import generator.IGenerator.GeneratorStatusType;
+import generator.IRewindable;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Flow;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSlider;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+
+/**
+ * The view of the runs of one generator: the image of the latest generation,
+ * a timeline for going back to earlier generations and a status line. Every
+ * generator shown by the MainWindow has a view of its own, so several runs can
+ * be watched side by side.
+ *
+ * The view subscribes to the frames of the generator and is only called on
+ * the event dispatch thread.
+ */
+public class RunView extends JPanel {
+
+    private final IGenerator generator;
+    private final FrameCache frameCache;
+    private final JLabel statusLine;
+    private final BufferedImageDisplayPanel imagePanel;
+    private final JSlider timeline;
+    private volatile int parameters; // hash of the parameters of the current run, the key of its frames
+    private boolean followRun = true; // the timeline shows the latest generation
+    private boolean updatingTimeline = false; // the timeline is moved by the run, not by the user
+
+    /**
+     * Constructor
+     *
+     * @param generator The generator to show
+     * @param frameCache Frames of the timeline, shared by all views
+     */
+    public RunView(IGenerator generator, FrameCache frameCache) {
+        super(new BorderLayout());
+        this.generator = generator;
+        this.frameCache = frameCache;
+
+        imagePanel = new BufferedImageDisplayPanel();
+        imagePanel.setBackground(Color.DARK_GRAY);
+        JScrollPane scrollPane = new JScrollPane(imagePanel);
+        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        this.add(scrollPane, BorderLayout.CENTER);
+
+        //Add Timeline for going back to earlier generations of the run
+        timeline = new JSlider(0, 0, 0);
+        timeline.setEnabled(false);
+        timeline.addChangeListener((ChangeEvent ce) -> {
+            timelineChanged();
+        });
+        this.add(timeline, BorderLayout.NORTH);
+
+        //Add Status Line of this generator, the runs of the other tabs have their own
+        statusLine = new JLabel(" ");
+        statusLine.setHorizontalAlignment(SwingConstants.LEFT);
+        this.add(statusLine, BorderLayout.SOUTH);
+
+        //Only the latest frame waits for the event dispatch thread, the run never waits for it
+        generator.getFramePublisher().subscribe(new DisplaySubscriber(), Backpressure.DROP_OLDEST, 1,
+                SwingUtilities::invokeLater);
+    }
+
+    /**
+     *
+     * @return The generator shown by this view
+     */
+    public IGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     *
+     * @return The panel with the image of the generation shown
+     */
+    public BufferedImageDisplayPanel getImagePanel() {
+        return imagePanel;
+    }
+
+    /**
+     *
+     * @param status The new status of the generator
+     */
+    public void showStatus(GeneratorStatusType status) {
+        statusLine.setText("Status: " + status);
+    }
+
+    /**
+     * Shows the frames of a new run from its first generation on.
+     */
+    public void startRun() {
+        frameCache.invalidate(generator.getName());
+        parameters = generator.getParameters().hashCode();
+        followRun = true;
+    }
+
+    /**
+     * Keeps a frame of the current run for the timeline, so going back does
+     * not render it again. Called by the run for every generation, on its
+     * own thread rather than the event dispatch thread.
+     *
+     * @param generation The number of the generation
+     * @param image The image of the generation
+     */
+    public void cacheFrame(int generation, BufferedImage image) {
+        if (generator instanceof IRewindable && ((IRewindable) generator).getHistory() != null) {
+            frameCache.put(generator.getName(), parameters, generation, image);
+        }
+    }
+
+    private void timelineChanged() {
+        if (updatingTimeline || !(generator instanceof IRewindable)) {
+            return;
+        }
+        int generation = timeline.getValue();
+        followRun = (generation == timeline.getMaximum());
+        try {
+            BufferedImage image = frameCache.get(generator.getName(), parameters, generation);
+            if (image == null) {
+                image = ((IRewindable) generator).renderGeneration(generation);
+                frameCache.put(generator.getName(), parameters, generation, image);
+            }
+            imagePanel.setImage(image, generator.getQuadratSize());
+            statusLine.setText("Generation: " + generation);
+        } catch (IllegalArgumentException ex) {
+            //The history has been cleared by a new run in the meantime
+        }
+    }
+
+    private void showGeneration(GenerationFrame frame) {
+        History history = (generator instanceof IRewindable) ? ((IRewindable) generator).getHistory() : null;
+        if (followRun && imagePanel.setImage(frame.getImage(), generator.getQuadratSize())) {
+            //The previous generation was replaced before it was painted
+            generator.getMetrics().recordFrameDrop();
+        }
+        updatingTimeline = true;
+        timeline.setEnabled(history != null);
+        if (history != null) {
+            timeline.setMinimum(history.getFirstGeneration());
+            timeline.setMaximum(Math.max(history.getFirstGeneration(), history.getLastGeneration()));
+            if (followRun) {
+                timeline.setValue(timeline.getMaximum());
+            }
+        }
+        updatingTimeline = false;
+    }
+
+    // Shows the frames of the generator, called on the event dispatch thread
+    private final class DisplaySubscriber implements Flow.Subscriber<GenerationFrame> {
+
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(GenerationFrame frame) {
+            showGeneration(frame);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            Logger.getLogger(RunView.class.getName()).log(Level.SEVERE, null, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package gui;
+
+import generator.GeneratorMetrics;
+import generator.IGenerator;
+import generator.PhaseStatistics;
+import java.awt.event.ActionEvent;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+/**
+ * Live readout of the run of a generator for the status bar: generation,
+ * generations per second, milliseconds per step and per render, population,
+ * used heap and the share of time spent in garbage collection.
+ *
+ * The readout samples the lock-free counters of the GeneratorMetrics with a
+ * Swing Timer, so it costs the same at any generation rate and the
+ * generators never call into Swing for it. Rates and durations are those
+ * since the previous sample.
+ */
+public class StatusReadout extends JLabel {
+
+    private static final int REFRESH = 500; // milliseconds between two samples
+    private static final long MB = 1L << 20;
+
+    private final Timer timer;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private volatile IGenerator generator;
+
+    // The previous sample
+    private IGenerator sampled;
+    private long sampledAt;
+    private long generations;
+    private long steps;
+    private double stepMillis; // total of all steps
+    private long renders;
+    private double renderMillis; // total of all renders
+    private long collectionMillis;
+
+    public StatusReadout() {
+        super("");
+        timer = new Timer(REFRESH, (ActionEvent ae) -> {
+            sample();
+        });
+    }
+
+    /**
+     *
+     * @param generator The generator to show, null for none
+     */
+    public void setGenerator(IGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Starts sampling.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops sampling.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        long collection = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            collection += Math.max(0, collector.getCollectionTime());
+        }
+        IGenerator current = generator;
+        if (current == null) {
+            collectionMillis = collection;
+            return;
+        }
+        GeneratorMetrics metrics = current.getMetrics();
+        PhaseStatistics step = metrics.getStep();
+        PhaseStatistics render = metrics.getRender();
+        long currentGenerations = metrics.getGenerations();
+        double currentStepMillis = step.getMean() * step.getCount();
+        double currentRenderMillis = render.getMean() * render.getCount();
+        if (current != sampled || currentGenerations < generations) {
+            //Another generator or cleared metrics, the rates start with the next sample
+            sampled = current;
+            sampledAt = now;
+            generations = currentGenerations;
+            steps = step.getCount();
+            stepMillis = currentStepMillis;
+            renders = render.getCount();
+            renderMillis = currentRenderMillis;
+        }
+        double seconds = (now - sampledAt) / 1e9;
+        double rate = (seconds > 0) ? (currentGenerations - generations) / seconds : 0.0;
+        //Durations since the previous sample, the overall mean if there were none
+        double perStep = (step.getCount() > steps)
+                ? (currentStepMillis - stepMillis) / (step.getCount() - steps) : step.getMean();
+        double perRender = (render.getCount() > renders)
+                ? (currentRenderMillis - renderMillis) / (render.getCount() - renders) : render.getMean();
+        double gc = (seconds > 0) ? 100.0 * (collection - collectionMillis) / (seconds * 1000.0) : 0.0;
+        Runtime runtime = Runtime.getRuntime();
+        long population = metrics.getPopulation();
+        setText(String.format("Generation %d | %.1f gen/s | step %.2f ms | render %.2f ms | population %s"
+                + " | heap %d of %d MB | GC %.0f%%",
+                current.getCurrentGeneration(), rate, perStep, perRender,
+                (population < 0) ? "-" : String.format("%,d", population),
+                (runtime.totalMemory() - runtime.freeMemory()) / MB, runtime.maxMemory() / MB,
+                Math.min(100.0, gc)));
+
+        sampledAt = now;
+        generations = currentGenerations;
+        steps = step.getCount();
+        stepMillis = currentStepMillis;
+        renders = render.getCount();
+        renderMillis = currentRenderMillis;
+        collectionMillis = collection;
+    }
+}
@@ -0,0 +1,283 @@
+package program;
+
+import generator.GeneratorMetrics;
+import generator.IGenerator;
+import generator.Snapshot;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import services.ApngRecorder;
+import services.IAsyncBufferedImageSaveService;
+import services.IFrameRecorder;
+import services.ImageZoom;
+import services.PngEncoder;
+
+/**
+ * Runs a single generator from the command line without a graphical user
+ * interface, e.g.
+ *
+ * java -jar CellularAutomata.jar --generator gol --size 2000 --generations 1000 --out final.png
+ *
+ * Parameters are read from an optional properties file (--config) and from
+ * arguments of the form --key value, the arguments win. Every parameter is
+ * handed to IGenerator.configure, so the keys are the same as the ones
+ * returned by IGenerator.getParameters. --size is a shortcut for --width and
+ * --height. The runner itself uses the following keys:
+ *      - generator: the generator to run (simple, wolfram, gol, whowins, epidemic, ltl, lenia),
+ *      - out: file for the image of the last generation,
+ *      - frames: directory for an image of every n-th generation,
+ *      - stats: CSV file for the statistics of every n-th generation,
+ *      - record: animated PNG of every n-th generation,
+ *      - delay: display time of a frame of the animation in milliseconds,
+ *      - every: n for frames, stats and record, 1 by default,
+ *      - compression: deflate level of the PNG files from 0 to 9, read by Program,
+ *      - checkpoint: snapshot of the last generation, see IGenerator.checkpoint,
+ *      - interval: write the checkpoint every n generations as well,
+ *      - restore: continue the run of a checkpoint, the parameters and the
+ *        generator are taken from the checkpoint,
+ *      - sweep: directory for a parameter sweep, see SweepRunner.
+ * Images are only rendered when an image output has been requested. The run
+ * waits for all of its images to be written and fails if one of them could not
+ * be written.
+ */
+public class BatchRunner {
+
+    private final IAsyncBufferedImageSaveService saveService;
+    private final Map<String, IGenerator> generators;
+
+    /**
+     * Constructor
+     *
+     * @param saveService Inject IBufferedImageService
+     * @param generators The generators keyed by their command line name
+     */
+    public BatchRunner(IAsyncBufferedImageSaveService saveService, Map<String, IGenerator> generators) {
+        this.saveService = saveService;
+        this.generators = generators;
+    }
+
+    /**
+     * Runs the generator selected by the parameters.
+     *
+     * @param parameters The parameters read by parseArguments
+     * @return The exit code for the process
+     */
+    public int run(Properties parameters) {
+        if (parameters.containsKey("help")) {
+            printUsage();
+            return 0;
+        }
+        if (parameters.containsKey("restore") && !parameters.containsKey("generator")) {
+            try {
+                String type = Snapshot.read(new File(parameters.getProperty("restore"))).getGenerator();
+                generators.forEach((key, candidate) -> {
+                    if (candidate.getClass().getName().equals(type)) {
+                        parameters.setProperty("generator", key);
+                    }
+                });
+            } catch (IOException ex) {
+                System.err.println(ex.getMessage());
+                return 2;
+            }
+        }
+        IGenerator generator = generators.get(parameters.getProperty("generator", ""));
+        if (generator == null) {
+            System.err.println("Unknown generator: " + parameters.getProperty("generator"));
+            printUsage();
+            return 2;
+        }
+        try {
+            if (parameters.containsKey("sweep")) {
+                int failures = new SweepRunner(saveService).run(parameters.getProperty("generator"), parameters);
+                return (failures == 0) ? 0 : 1;
+            }
+            if (parameters.containsKey("restore")) {
+                generator.restore(parameters.getProperty("restore"));
+            } else {
+                generator.configure(expandSize(parameters));
+            }
+            run(generator, parameters);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return 2;
+        } catch (IOException | UncheckedIOException ex) {
+            Logger.getLogger(BatchRunner.class.getName()).log(Level.SEVERE, null, ex);
+            return 1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        return 0;
+    }
+
+    private void run(IGenerator generator, Properties parameters) throws IOException {
+        String out = parameters.getProperty("out");
+        String frames = parameters.getProperty("frames");
+        String stats = parameters.getProperty("stats");
+        String record = parameters.getProperty("record");
+        String checkpoint = parameters.getProperty("checkpoint");
+        int every = Integer.parseInt(parameters.getProperty("every", "1"));
+        int interval = Integer.parseInt(parameters.getProperty("interval", "0"));
+        if (every < 1) {
+            throw new IllegalArgumentException("every must be at least 1");
+        }
+        if (frames != null) {
+            new File(frames).mkdirs();
+        }
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<File>> saves = new ArrayList<>();
+        generator.reset();
+        if (stats != null && generator.getStatistics().isEmpty()) {
+            throw new IllegalArgumentException(generator.getName() + " has no statistics to write");
+        }
+        try (PrintWriter statsWriter = (stats != null) ? new PrintWriter(stats, "UTF-8") : null;
+                IFrameRecorder recorder = (record != null) ? new ApngRecorder(new File(record),
+                        Integer.parseInt(parameters.getProperty("delay", "100")),
+                        new PngEncoder(Integer.parseInt(parameters.getProperty("compression",
+                                String.valueOf(PngEncoder.DEFAULT_COMPRESSION))))) : null) {
+            int gen = generator.getGenerations();
+            if (statsWriter != null) {
+                statsWriter.println("generation," + String.join(",", generator.getStatistics().keySet()));
+            }
+            write(generator, frames, statsWriter, recorder, saves);
+            //A restored run continues with the generation of the checkpoint
+            while (generator.getCurrentGeneration() < gen - 1) {
+                generator.step();
+                if (generator.getCurrentGeneration() % every == 0) {
+                    write(generator, frames, statsWriter, recorder, saves);
+                }
+                if (checkpoint != null && interval > 0 && generator.getCurrentGeneration() % interval == 0) {
+                    generator.checkpoint(checkpoint);
+                }
+            }
+        }
+        if (checkpoint != null) {
+            generator.checkpoint(checkpoint);
+        }
+        if (out != null) {
+            BufferedImage image = ImageZoom.zoom(generator.render(), generator.getQuadratSize());
+            saves.add(saveService.saveBufferedImageAsync(out, image, generator.getMetrics()::recordSave));
+        }
+        //The summary and the exit code cover the images still in the queue
+        int failed = 0;
+        for (CompletableFuture<File> save : saves) {
+            try {
+                save.join();
+            } catch (CompletionException ex) {
+                Logger.getLogger(BatchRunner.class.getName()).log(Level.SEVERE, null, ex.getCause());
+                failed++;
+            }
+        }
+        GeneratorMetrics metrics = generator.getMetrics();
+        Logger.getLogger(BatchRunner.class.getName()).log(Level.INFO, "{0} finished generation {1} in {2} ms ({3})",
+                new Object[]{generator.getName(), generator.getCurrentGeneration(), System.currentTimeMillis() - start,
+                    generator.getStatus()});
+        Logger.getLogger(BatchRunner.class.getName()).log(Level.INFO,
+                "{0}: {1} generations/s, {2} cells/s, step {3}, render {4}, save {5}",
+                new Object[]{generator.getName(), String.format("%.1f", metrics.getGenerationsPerSecond()),
+                    String.format("%.0f", metrics.getCellsPerSecond()), metrics.getStep(), metrics.getRender(),
+                    metrics.getSave()});
+        if (failed > 0) {
+            throw new IOException(failed + " of " + saves.size() + " images could not be written");
+        }
+    }
+
+    private void write(IGenerator generator, String frames, PrintWriter statsWriter, IFrameRecorder recorder,
+            List<CompletableFuture<File>> saves) throws IOException {
+        int generation = generator.getCurrentGeneration();
+        if (frames != null || recorder != null) {
+            BufferedImage image = ImageZoom.zoom(generator.render(), generator.getQuadratSize());
+            if (frames != null) {
+                String filename = String.format("%s%s%06d.png", frames, File.separator, generation);
+                saves.add(saveService.saveBufferedImageAsync(filename, image, generator.getMetrics()::recordSave));
+            }
+            if (recorder != null) {
+                recorder.recordFrame(image);
+            }
+        }
+        if (statsWriter != null) {
+            Map<String, Long> statistics = generator.getStatistics();
+            StringBuilder line = new StringBuilder().append(generation);
+            statistics.values().forEach((count) -> {
+                line.append(',').append(count);
+            });
+            statsWriter.println(line);
+        }
+    }
+
+    /**
+     * Reads the properties file given with --config and all arguments of the
+     * form --key value into one set of parameters.
+     *
+     * @param args The command line arguments
+     * @return The merged parameters
+     * @throws IOException If the properties file can not be read
+     */
+    static Properties parseArguments(String[] args) throws IOException {
+        Properties arguments = new Properties();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (key.equals("help")) {
+                arguments.setProperty(key, "true");
+            } else if (i + 1 < args.length) {
+                arguments.setProperty(key, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+        }
+
+        Properties parameters = new Properties();
+        if (arguments.containsKey("config")) {
+            try (InputStream in = new FileInputStream(arguments.getProperty("config"))) {
+                parameters.load(in);
+            }
+        }
+        parameters.putAll(arguments);
+        return parameters;
+    }
+
+    /**
+     * Replaces the shortcut size by width and height.
+     *
+     * @param parameters The parameters of a single run
+     * @return The same parameters for chaining
+     */
+    static Properties expandSize(Properties parameters) {
+        if (parameters.containsKey("size")) {
+            parameters.setProperty("width", parameters.getProperty("size"));
+            parameters.setProperty("height", parameters.getProperty("size"));
+        }
+        return parameters;
+    }
+
+    /**
+     * Prints the command line options to stderr.
+     */
+    static void printUsage() {
+        System.err.println("Usage: java -jar CellularAutomata.jar --generator <simple|wolfram|gol|whowins|epidemic|ltl|lenia>");
+        System.err.println("         [--config <file.properties>] [--size <pixels>] [--quadrat <pixels>]");
+        System.err.println("         [--out <file.png>] [--frames <directory>] [--stats <file.csv>] [--every <n>]");
+        System.err.println("         [--record <animation.png> [--delay <ms>]] [--compression <0-9>]");
+        System.err.println("         [--checkpoint <file> [--interval <n>]] [--restore <file>]");
+        System.err.println("         [--sweep <directory> [--threads <n>] [--images <true|false>]");
+        System.err.println("          [--mode <platform|virtual>] [--replicas <n>] [--instances <n>]]");
+        System.err.println("         [--<parameter> <value[,value...]|start:end:step> ...]");
+        System.err.println("Without arguments the graphical user interface is started.");
+    }
+}
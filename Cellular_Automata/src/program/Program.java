@@ -1,15 +1,27 @@
 package program;
 
+import generator.GeneratorMetrics;
 import generator.IGenerator;
 import generator.simplegenerator.SimpleGenerator;
 import generator.wolfram.WolframCA;
 import generator.whowins.WhoWins;
 import generator.epidemic.Epidemic;
 import generator.gol.GameOfLife;
+import generator.lenia.Lenia;
+import generator.ltl.LargerThanLife;
 import gui.MainWindow;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import javax.swing.SwingUtilities;
+import services.AsyncBufferedImageSaveService;
 import services.BufferedImageSaveService;
+import services.IAsyncBufferedImageSaveService;
+import services.PngEncoder;
 import services.IBufferedImageSaveService;
 
 /**
@@ -19,19 +31,93 @@ import services.IBufferedImageSaveService;
 public class Program {
 
     public static void main(String[] args) {
-        //Create ImageSaveService Instance
-        IBufferedImageSaveService imageSaveService = new BufferedImageSaveService();
+        if (args.length > 0) {
+            //Run without GUI, nothing on this path may touch a Swing class
+            System.setProperty("java.awt.headless", "true");
+            Properties parameters;
+            PngEncoder encoder;
+            try {
+                parameters = BatchRunner.parseArguments(args);
+                encoder = new PngEncoder(Integer.parseInt(parameters.getProperty("compression",
+                        String.valueOf(PngEncoder.DEFAULT_COMPRESSION))));
+            } catch (IOException | IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                BatchRunner.printUsage();
+                System.exit(2);
+                return;
+            }
+            //Encode on all cores, the simulation only waits when the queue is full
+            int threads = Runtime.getRuntime().availableProcessors();
+            IAsyncBufferedImageSaveService imageSaveService = new AsyncBufferedImageSaveService(
+                    new BufferedImageSaveService(encoder), threads, 2 * threads, true);
+            Map<String, IGenerator> generators = createGenerators(imageSaveService);
+            //Watch the runs with JConsole or any other JMX client
+            generators.values().forEach(GeneratorMetrics::register);
+            BatchRunner runner = new BatchRunner(imageSaveService, generators);
+            int exitCode = runner.run(parameters);
+            imageSaveService.shutdown();
+            System.exit(exitCode);
+        }
+        //Create ImageSaveService Instance, saving must never block the GUI
+        IAsyncBufferedImageSaveService imageSaveService = new AsyncBufferedImageSaveService(
+                new BufferedImageSaveService(), 4);
         //Register Generators
-        ArrayList<IGenerator> generators = new ArrayList<>();
-        generators.add(new SimpleGenerator(imageSaveService, "Simple Generator"));
-        generators.add(new WolframCA(imageSaveService, "Wolfram CA Generator"));
-        generators.add(new GameOfLife(imageSaveService, "Game of Life Generator"));
-        generators.add(new WhoWins(imageSaveService, "Who Wins Generator"));
-        generators.add(new Epidemic(imageSaveService, "Epidemics Generator"));
+        ArrayList<IGenerator> generators = new ArrayList<>(createGenerators(imageSaveService).values());
+        generators.forEach(GeneratorMetrics::register);
         //Show GUI
         SwingUtilities.invokeLater(() -> {
             final MainWindow wnd = new MainWindow(imageSaveService, generators);
             wnd.setVisible(true);
         });
     }
+
+    /**
+     * The names of the generators used on the command line, in the order of
+     * the GUI.
+     */
+    static final List<String> GENERATOR_KEYS = Arrays.asList(
+            "simple", "wolfram", "gol", "whowins", "epidemic", "ltl", "lenia");
+
+    /**
+     * Creates a new instance of every known generator.
+     *
+     * @param imageSaveService The service injected into the generators
+     * @return The generators keyed by the name used on the command line
+     */
+    static Map<String, IGenerator> createGenerators(IBufferedImageSaveService imageSaveService) {
+        Map<String, IGenerator> generators = new LinkedHashMap<>();
+        for (String key : GENERATOR_KEYS) {
+            generators.put(key, createGenerator(key, imageSaveService));
+        }
+        return generators;
+    }
+
+    /**
+     * Creates a new instance of a single generator.
+     *
+     * @param key The name of the generator used on the command line
+     * @param imageSaveService The service injected into the generator
+     * @return The generator
+     * @throws IllegalArgumentException If there is no generator of this name
+     */
+    static IGenerator createGenerator(String key, IBufferedImageSaveService imageSaveService) {
+        switch (key) {
+            case "simple":
+                return new SimpleGenerator(imageSaveService, "Simple Generator");
+            case "wolfram":
+                return new WolframCA(imageSaveService, "Wolfram CA Generator");
+            case "gol":
+                return new GameOfLife(imageSaveService, "Game of Life Generator");
+            case "whowins":
+                return new WhoWins(imageSaveService, "Who Wins Generator");
+            case "epidemic":
+                return new Epidemic(imageSaveService, "Epidemics Generator");
+            case "ltl":
+                return new LargerThanLife(imageSaveService, "Larger than Life Generator");
+            case "lenia":
+                return new Lenia(imageSaveService, "Lenia Generator");
+            default:
+                throw new IllegalArgumentException("Unknown generator: " + key);
+        }
+    }
 }
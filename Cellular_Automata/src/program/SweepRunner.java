@@ -0,0 +1,375 @@
+package program;
+
+import generator.IGenerator;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import services.IAsyncBufferedImageSaveService;
+import services.ImageZoom;
+
+/**
+ * Runs every combination of a parameter grid for one generator on a bounded
+ * pool of worker threads, e.g.
+ *
+ * --generator wolfram --rule 30,90,110 --start MIDDLE,RANDOM --sweep results
+ *
+ * Every parameter value containing a comma is an axis of the grid, numeric
+ * axes can also be given as start:end:step (--alive 0.1:0.9:0.1). Every run
+ * writes the image of its last generation into the sweep directory and a row
+ * into manifest.csv, which holds the parameters of the axes, the image file and
+ * the statistics of the last generation. An image that could not be written
+ * counts as a failure, its row names no image file. The complete grid is
+ * stored in sweep.properties. With --replicas n every configuration is run n
+ * times, e.g. for an ensemble of Epidemic runs. A given seed is counted up from
+ * one replica to the next, so the ensemble is repeatable.
+ *
+ * By default (--mode platform) the runs share a pool of --threads worker
+ * threads. With --mode virtual every run gets a virtual thread of its own and
+ * only the calculation of a generation waits for one of --threads permits;
+ * a run gives up its permit after each generation. So many small runs
+ * advance side by side at the cost of their grids, not of a platform thread
+ * each. Virtual threads need a JDK 21 or newer, older ones fall back to the
+ * platform pool.
+ *
+ * A run borrows an instance of the swept generator and returns it afterwards.
+ * At most --instances runs hold an instance at the same time, the others wait
+ * before they configure one. By default these are --threads instances with
+ * platform threads and VIRTUAL_INSTANCES times as many with virtual threads.
+ * The generators keep their grid buffers between runs of the same dimensions,
+ * so a sweep over thousands of configurations allocates the grids only once
+ * per instance.
+ */
+public class SweepRunner {
+
+    /**
+     * Keys used by the runners themselves, these are never expanded.
+     */
+    private static final List<String> RUNNER_KEYS = Arrays.asList(
+            "generator", "config", "sweep", "threads", "images", "out", "frames", "stats", "every",
+            "compression", "record", "delay", "checkpoint", "interval", "restore", "mode", "replicas",
+            "instances");
+
+    /**
+     * Runs of a virtual thread sweep sharing the permit of a platform thread
+     * unless --instances is given.
+     */
+    private static final int VIRTUAL_INSTANCES = 16;
+
+    private final IAsyncBufferedImageSaveService saveService;
+    private final ConcurrentLinkedQueue<IGenerator> idleGenerators = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor
+     *
+     * @param saveService Inject IBufferedImageService
+     */
+    public SweepRunner(IAsyncBufferedImageSaveService saveService) {
+        this.saveService = saveService;
+    }
+
+    /**
+     * Runs all combinations of the parameter grid.
+     *
+     * @param generatorKey The command line name of the generator
+     * @param parameters The parameters including the axes of the grid
+     * @return The number of failed runs and images
+     * @throws IOException If the manifest can not be written
+     * @throws InterruptedException If the sweep has been interrupted
+     */
+    public int run(String generatorKey, Properties parameters) throws IOException, InterruptedException {
+        File directory = new File(parameters.getProperty("sweep"));
+        int threads = Integer.parseInt(parameters.getProperty("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        boolean images = Boolean.parseBoolean(parameters.getProperty("images", "true"));
+        String mode = parameters.getProperty("mode", "platform");
+        int replicas = Integer.parseInt(parameters.getProperty("replicas", "1"));
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        if (!mode.equals("platform") && !mode.equals("virtual")) {
+            throw new IllegalArgumentException("mode must be platform or virtual");
+        }
+        if (replicas < 1) {
+            throw new IllegalArgumentException("replicas must be at least 1");
+        }
+        directory.mkdirs();
+        //Keep the complete grid next to the manifest to make the sweep repeatable
+        try (OutputStream out = new FileOutputStream(new File(directory, "sweep.properties"))) {
+            parameters.store(out, "Parameters of the sweep");
+        }
+
+        List<String> axes = new ArrayList<>();
+        List<Properties> runs = replicate(expand(parameters, axes), replicas, axes);
+
+        ExecutorService workers = (mode.equals("virtual")) ? newVirtualThreadExecutor() : null;
+        if (workers == null && mode.equals("virtual")) {
+            Logger.getLogger(SweepRunner.class.getName()).log(Level.WARNING,
+                    "Virtual threads need Java 21 or newer, using platform threads");
+        }
+        int instances = Integer.parseInt(parameters.getProperty("instances",
+                String.valueOf((workers == null) ? threads : VIRTUAL_INSTANCES * threads)));
+        if (instances < 1) {
+            throw new IllegalArgumentException("instances must be at least 1");
+        }
+        Logger.getLogger(SweepRunner.class.getName()).log(Level.INFO,
+                "Sweeping {0} runs of {1} on {2} {3} threads with {4} instances",
+                new Object[]{runs.size(), generatorKey, threads, (workers == null) ? "platform" : "virtual", instances});
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(threads);
+        }
+
+        //Limits the runs calculating at the same time, never waits on a pool of as many threads
+        Semaphore cores = new Semaphore(threads, true);
+        //Limits the runs holding a generator, so the idle ones are reused instead of created
+        Semaphore generators = new Semaphore(instances, true);
+        CompletionService<Result> completion = new ExecutorCompletionService<>(workers);
+        for (int i = 0; i < runs.size(); i++) {
+            final int index = i + 1;
+            final Properties run = runs.get(i);
+            completion.submit(() -> runOne(index, generatorKey, run, directory, images, cores, generators));
+        }
+        workers.shutdown();
+
+        int failures = 0;
+        try (PrintWriter manifest = new PrintWriter(new File(directory, "manifest.csv"), "UTF-8")) {
+            boolean header = false;
+            for (int i = 0; i < runs.size(); i++) {
+                Result result;
+                try {
+                    result = completion.take().get();
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(SweepRunner.class.getName()).log(Level.SEVERE, null, ex.getCause());
+                    failures++;
+                    continue;
+                }
+                if (!header) {
+                    StringBuilder columns = new StringBuilder("run");
+                    for (String axis : axes) {
+                        columns.append(',').append(axis);
+                    }
+                    columns.append(",generation,millis,image");
+                    for (String state : result.statistics.keySet()) {
+                        columns.append(",cells.").append(state);
+                    }
+                    manifest.println(columns);
+                    header = true;
+                }
+                //Only an image that has been written is named by the manifest
+                String image = result.image;
+                if (result.saved != null) {
+                    try {
+                        result.saved.join();
+                    } catch (CompletionException ex) {
+                        Logger.getLogger(SweepRunner.class.getName()).log(Level.SEVERE, null, ex.getCause());
+                        failures++;
+                        image = "";
+                    }
+                }
+                StringBuilder line = new StringBuilder().append(result.index);
+                for (String axis : axes) {
+                    line.append(',').append(result.parameters.getProperty(axis));
+                }
+                line.append(',').append(result.generation)
+                        .append(',').append(result.millis)
+                        .append(',').append(image);
+                result.statistics.values().forEach((count) -> {
+                    line.append(',').append(count);
+                });
+                manifest.println(line);
+                manifest.flush();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return failures;
+    }
+
+    private Result runOne(int index, String generatorKey, Properties parameters, File directory, boolean images,
+            Semaphore cores, Semaphore generators) throws InterruptedException {
+        generators.acquire();
+        IGenerator generator = idleGenerators.poll();
+        if (generator == null) {
+            generator = Program.createGenerator(generatorKey, saveService);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            generator.configure(BatchRunner.expandSize(parameters));
+            cores.acquire();
+            try {
+                generator.reset();
+            } finally {
+                cores.release();
+            }
+            int gen = generator.getGenerations();
+            //A run that becomes stable skips to the last generation
+            while (generator.getCurrentGeneration() < gen - 1) {
+                cores.acquire();
+                try {
+                    generator.step();
+                } finally {
+                    cores.release();
+                }
+                //Let the other runs have their generation
+                Thread.yield();
+            }
+            String image = "";
+            CompletableFuture<File> saved = null;
+            if (images) {
+                image = String.format("run-%05d.png", index);
+                saved = saveService.saveBufferedImageAsync(new File(directory, image).getPath(),
+                        ImageZoom.zoom(generator.render(), generator.getQuadratSize()));
+            }
+            return new Result(index, parameters, generator.getCurrentGeneration(),
+                    System.currentTimeMillis() - start, image, saved, generator.getStatistics());
+        } finally {
+            idleGenerators.offer(generator);
+            generators.release();
+        }
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread for every task.
+     *
+     * @return The executor, null if the JDK has no virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        //Looked up at runtime, the sources are compiled for Java 11
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Repeats every run, the replicas are numbered by an extra axis.
+     *
+     * @param runs The parameters of every single run
+     * @param replicas How often every run is repeated
+     * @param axes The names of the axes, receives the replica axis
+     * @return The parameters of every single run and replica
+     */
+    static List<Properties> replicate(List<Properties> runs, int replicas, List<String> axes) {
+        if (replicas == 1) {
+            return runs;
+        }
+        axes.add("replica");
+        List<Properties> replicated = new ArrayList<>(runs.size() * replicas);
+        for (Properties run : runs) {
+            for (int replica = 1; replica <= replicas; replica++) {
+                Properties copy = new Properties();
+                copy.putAll(run);
+                copy.setProperty("replica", String.valueOf(replica));
+                if (run.containsKey("seed")) {
+                    copy.setProperty("seed", String.valueOf(Long.parseLong(run.getProperty("seed")) + replica - 1));
+                }
+                replicated.add(copy);
+            }
+        }
+        return replicated;
+    }
+
+    /**
+     * Expands the parameter grid into the parameters of every single run.
+     *
+     * @param parameters The parameters including the axes of the grid
+     * @param axes Receives the names of the axes in the order of the manifest
+     * @return The parameters of every run
+     */
+    static List<Properties> expand(Properties parameters, List<String> axes) {
+        List<Properties> runs = new ArrayList<>();
+        runs.add(new Properties());
+        for (String key : new TreeSet<>(parameters.stringPropertyNames())) {
+            String value = parameters.getProperty(key);
+            List<String> values = RUNNER_KEYS.contains(key)
+                    ? Arrays.asList(value) : values(value);
+            if (values.size() > 1) {
+                axes.add(key);
+            }
+            List<Properties> expanded = new ArrayList<>(runs.size() * values.size());
+            for (Properties run : runs) {
+                for (String v : values) {
+                    Properties combination = new Properties();
+                    combination.putAll(run);
+                    combination.setProperty(key, v);
+                    expanded.add(combination);
+                }
+            }
+            runs = expanded;
+        }
+        return runs;
+    }
+
+    private static List<String> values(String value) {
+        String[] range = value.split(":");
+        if (range.length == 3) {
+            try {
+                BigDecimal start = new BigDecimal(range[0].trim());
+                BigDecimal end = new BigDecimal(range[1].trim());
+                BigDecimal step = new BigDecimal(range[2].trim());
+                if (step.signum() <= 0) {
+                    throw new IllegalArgumentException("Step of " + value + " must be positive");
+                }
+                List<String> values = new ArrayList<>();
+                for (BigDecimal v = start; v.compareTo(end) <= 0; v = v.add(step)) {
+                    values.add(v.toPlainString());
+                }
+                return values;
+            } catch (NumberFormatException ex) {
+                //Not a numeric range, fall through to a list of values
+            }
+        }
+        List<String> values = new ArrayList<>();
+        for (String v : value.split(",")) {
+            values.add(v.trim());
+        }
+        return values;
+    }
+
+    /**
+     * Outcome of a single run of the sweep.
+     */
+    private static class Result {
+
+        private final int index;
+        private final Properties parameters;
+        private final int generation;
+        private final long millis;
+        private final String image;
+        private final CompletableFuture<File> saved; // null without an image
+        private final Map<String, Long> statistics;
+
+        Result(int index, Properties parameters, int generation, long millis, String image,
+                CompletableFuture<File> saved, Map<String, Long> statistics) {
+            this.index = index;
+            this.parameters = parameters;
+            this.generation = generation;
+            this.millis = millis;
+            this.image = image;
+            this.saved = saved;
+            this.statistics = statistics;
+        }
+    }
+}
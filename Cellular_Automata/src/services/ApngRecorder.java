@@ -0,0 +1,186 @@
+package services;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of the IFrameRecorder Interface that streams an animated PNG
+ * (APNG) to disk. The first frame is stored completely, every following frame
+ * only holds the rectangle that changed since the frame before. Only the pixels
+ * of the last frame are kept in memory, so the memory needed does not depend on
+ * the length of the run. The number of frames is written into the file when the
+ * recorder is closed.
+ */
+
+public class ApngRecorder implements IFrameRecorder {
+
+    //Signature (8) + IHDR (25) + length and type of acTL (8)
+    private static final int FRAME_COUNT_POSITION = 41;
+
+    private final File file;
+    private final int delay;
+    private final PngEncoder encoder;
+    private final PngEncoder.Format format = PngEncoder.Format.rgba();
+
+    private DataOutputStream out;
+    private int width;
+    private int height;
+    private int[] previous; // pixels of the last frame, row by row
+    private int[] row;
+    private int frames = 0;
+    private int sequence = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param file The file for the animation
+     * @param delay Display time of every frame in milliseconds
+     * @param encoder Encoder used to compress the frames
+     */
+    public ApngRecorder(File file, int delay, PngEncoder encoder) {
+        this.file = file;
+        this.delay = delay;
+        this.encoder = encoder;
+    }
+
+    @Override
+    public synchronized void recordFrame(BufferedImage image) throws IOException {
+        if (closed) {
+            throw new IOException("Recording to " + file + " has been closed");
+        }
+        if (out == null) {
+            start(image);
+            return;
+        }
+        if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IOException("All frames must have a size of " + width + "x" + height);
+        }
+
+        //Bounding box of the changed pixels, the last frame is updated on the way
+        int left = width;
+        int right = -1;
+        int top = height;
+        int bottom = -1;
+        for (int y = 0; y < height; y++) {
+            PngEncoder.readRow(image, 0, y, row);
+            int offset = y * width;
+            int first = 0;
+            while (first < width && row[first] == previous[offset + first]) {
+                first++;
+            }
+            if (first == width) {
+                continue;
+            }
+            int last = width - 1;
+            while (row[last] == previous[offset + last]) {
+                last--;
+            }
+            System.arraycopy(row, first, previous, offset + first, last - first + 1);
+            left = Math.min(left, first);
+            right = Math.max(right, last);
+            top = Math.min(top, y);
+            bottom = y;
+        }
+        if (right < 0) {
+            //Nothing changed, repeat a single pixel to keep the timing
+            left = 0;
+            right = 0;
+            top = 0;
+            bottom = 0;
+        }
+
+        int w = right - left + 1;
+        int h = bottom - top + 1;
+        writeFrameControl(left, top, w, h);
+        for (byte[] part : encoder.compress(image, format, left, top, w, h)) {
+            ByteArrayOutputStream fdat = new ByteArrayOutputStream(part.length + 4);
+            new DataOutputStream(fdat).writeInt(sequence++);
+            fdat.write(part);
+            PngEncoder.writeChunk(out, "fdAT", fdat.toByteArray());
+        }
+        frames++;
+    }
+
+    private void start(BufferedImage image) throws IOException {
+        width = image.getWidth();
+        height = image.getHeight();
+        previous = new int[width * height];
+        row = new int[width];
+        for (int y = 0; y < height; y++) {
+            PngEncoder.readRow(image, 0, y, row);
+            System.arraycopy(row, 0, previous, y * width, width);
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.write(PngEncoder.SIGNATURE);
+        PngEncoder.writeChunk(out, "IHDR", PngEncoder.header(width, height, format));
+        ByteArrayOutputStream actl = new ByteArrayOutputStream();
+        DataOutputStream animation = new DataOutputStream(actl);
+        animation.writeInt(0); // number of frames, patched by close
+        animation.writeInt(0); // loop forever
+        PngEncoder.writeChunk(out, "acTL", actl.toByteArray());
+
+        //The first frame is the default image of the PNG
+        writeFrameControl(0, 0, width, height);
+        List<byte[]> parts = encoder.compress(image, format, 0, 0, width, height);
+        for (byte[] part : parts) {
+            PngEncoder.writeChunk(out, "IDAT", part);
+        }
+        frames++;
+    }
+
+    private void writeFrameControl(int x, int y, int w, int h) throws IOException {
+        ByteArrayOutputStream fctl = new ByteArrayOutputStream(26);
+        DataOutputStream control = new DataOutputStream(fctl);
+        control.writeInt(sequence++);
+        control.writeInt(w);
+        control.writeInt(h);
+        control.writeInt(x);
+        control.writeInt(y);
+        control.writeShort(delay);
+        control.writeShort(1000);
+        control.writeByte(0); // keep the frame, the next one is drawn on top
+        control.writeByte(0); // replace the pixels of the rectangle
+        PngEncoder.writeChunk(out, "fcTL", fctl.toByteArray());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        previous = null;
+        if (out == null) {
+            return;
+        }
+        PngEncoder.writeChunk(out, "IEND", new byte[0]);
+        out.close();
+
+        //Patch the number of frames and the checksum of acTL
+        try (RandomAccessFile png = new RandomAccessFile(file, "rw")) {
+            byte[] chunk = new byte[12];
+            png.seek(FRAME_COUNT_POSITION - 4);
+            png.readFully(chunk);
+            chunk[4] = (byte) (frames >>> 24);
+            chunk[5] = (byte) (frames >>> 16);
+            chunk[6] = (byte) (frames >>> 8);
+            chunk[7] = (byte) frames;
+            CRC32 crc = new CRC32();
+            crc.update(chunk);
+            png.seek(FRAME_COUNT_POSITION);
+            png.writeInt(frames);
+            png.skipBytes(4);
+            png.writeInt((int) crc.getValue());
+        }
+    }
+}
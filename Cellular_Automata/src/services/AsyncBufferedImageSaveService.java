@@ -0,0 +1,128 @@
+package services;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of the IAsyncBufferedImageSaveService Interface.
+ * The images are written by a BufferedImageSaveService on background threads.
+ * At most capacity images wait for their turn. When the queue is full a new
+ * image is either rejected, so that the calling thread never waits for the
+ * disk, or the calling thread waits for a free slot (blockWhenFull).
+ */
+
+public class AsyncBufferedImageSaveService implements IAsyncBufferedImageSaveService {
+
+    private final BufferedImageSaveService writer;
+    private final ExecutorService executor;
+    private final Semaphore slots;
+    private final boolean blockWhenFull;
+
+    /**
+     * Constructor for a service with one background thread that never blocks
+     * the caller.
+     *
+     * @param writer Writes the images on the background thread
+     * @param capacity Number of images that may wait to be written
+     */
+    public AsyncBufferedImageSaveService(BufferedImageSaveService writer, int capacity) {
+        this(writer, 1, capacity, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param writer Writes the images on the background threads
+     * @param threads Number of background threads
+     * @param capacity Number of images that may wait to be written
+     * @param blockWhenFull Wait for a free slot instead of rejecting an image
+     */
+    public AsyncBufferedImageSaveService(BufferedImageSaveService writer, int threads, int capacity,
+            boolean blockWhenFull) {
+        this.writer = writer;
+        this.slots = new Semaphore(threads + capacity);
+        this.blockWhenFull = blockWhenFull;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, (Runnable r) -> {
+            Thread t = new Thread(r, "image-save-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void saveBufferedImage(String filename, BufferedImage image) {
+        saveBufferedImage(filename, image, (long nanos) -> {
+        });
+    }
+
+    @Override
+    public void saveBufferedImage(String filename, BufferedImage image, LongConsumer writeTime) {
+        saveBufferedImageAsync(filename, image, writeTime).exceptionally((Throwable ex) -> {
+            Logger.getLogger(AsyncBufferedImageSaveService.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<File> saveBufferedImageAsync(String filename, BufferedImage image,
+            LongConsumer writeTime) {
+        CompletableFuture<File> result = new CompletableFuture<>();
+        try {
+            if (blockWhenFull) {
+                slots.acquire();
+            } else if (!slots.tryAcquire()) {
+                throw new RejectedExecutionException("Save queue is full, " + filename + " has been dropped");
+            }
+        } catch (InterruptedException | RejectedExecutionException ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            result.completeExceptionally(ex);
+            return result;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    File file = writer.write(filename, image);
+                    writeTime.accept(System.nanoTime() - start);
+                    result.complete(file);
+                } catch (IOException | RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            //The service has been shut down
+            slots.release();
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                Logger.getLogger(AsyncBufferedImageSaveService.class.getName()).log(Level.INFO,
+                        "Waiting for images to be written");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package services;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.imageio.ImageIO;
 
 /**
  * Implementation of the IBufferedImageService Interface
@@ -13,17 +15,61 @@ import javax.imageio.ImageIO;
 
 public class BufferedImageSaveService implements IBufferedImageSaveService {
 
+    private final PngEncoder encoder;
+
+    /**
+     * Constructor for the default compression level
+     */
+    public BufferedImageSaveService() {
+        this(new PngEncoder());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param encoder Encoder for the PNG files
+     */
+    public BufferedImageSaveService(PngEncoder encoder) {
+        this.encoder = encoder;
+    }
+
     @Override
     public void saveBufferedImage(String filename, BufferedImage image) {
         try {
-            //Add FileTypeExtension if missing in Filename
-            if (!filename.endsWith(".png")) {
-                filename += ".png";
-            }
-            //Write Picture
-            ImageIO.write(image, "png", new File(filename));
+            write(filename, image);
         } catch (IOException ex) {
             Logger.getLogger(BufferedImageSaveService.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
+
+    /**
+     * Writes the image as PNG.
+     *
+     * @param filename Filepath with Filename for the image
+     * @param image The image that should be written to disk
+     * @return The written file
+     * @throws IOException If the image could not be written
+     */
+    public File write(String filename, BufferedImage image) throws IOException {
+        //Add FileTypeExtension if missing in Filename
+        if (!filename.endsWith(".png")) {
+            filename += ".png";
+        }
+        //Write Picture
+        File file = new File(filename);
+        SaveEvent event = new SaveEvent();
+        event.begin();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            encoder.write(image, out);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.getPath();
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.size = file.length();
+            event.commit();
+        }
+        return file;
+    }
 }
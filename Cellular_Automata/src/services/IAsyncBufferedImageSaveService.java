@@ -0,0 +1,48 @@
+package services;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+/**
+ * Interface Definition for a service that saves bufferedImages to disk on a
+ * background thread. saveBufferedImage only queues the image and returns
+ * immediately.
+ */
+
+public interface IAsyncBufferedImageSaveService extends IBufferedImageSaveService {
+
+    /**
+     * Queues the image for saving. The image is written as it is when the save
+     * runs, so it must not be modified after it has been handed over.
+     *
+     * @param filename Filepath with Filename for the image
+     * @param image The image that should be written to disk
+     * @return Completes with the written file or exceptionally if the image
+     * could not be queued or written
+     */
+    public default CompletableFuture<File> saveBufferedImageAsync(String filename, BufferedImage image) {
+        return saveBufferedImageAsync(filename, image, (long nanos) -> {
+        });
+    }
+
+    /**
+     * Queues the image for saving like saveBufferedImageAsync and reports
+     * how long encoding and writing it took, without the time it was queued.
+     *
+     * @param filename Filepath with Filename for the image
+     * @param image The image that should be written to disk
+     * @param writeTime Receives the nanoseconds spent on encoding and writing
+     * before the result completes
+     * @return Completes with the written file or exceptionally if the image
+     * could not be queued or written
+     */
+    public CompletableFuture<File> saveBufferedImageAsync(String filename, BufferedImage image,
+            LongConsumer writeTime);
+
+    /**
+     * Stops accepting images and waits until all queued images are written.
+     */
+    public void shutdown();
+}
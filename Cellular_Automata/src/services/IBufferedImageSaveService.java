@@ -1,6 +1,7 @@
 package services;
 
 import java.awt.image.BufferedImage;
+import java.util.function.LongConsumer;
 
 /**
  * Interface Definition for a service that implements methods to save a
@@ -15,4 +16,19 @@ public interface IBufferedImageSaveService {
      * @param image The image that shoul be written to disk
      */
     public void saveBufferedImage(String filename, BufferedImage image);
+
+    /**
+     * Saves the image like saveBufferedImage and reports how long encoding
+     * and writing it took. A service that saves in the background reports
+     * this once the image has been written, without the time it waited.
+     *
+     * @param filename Filepath with Filename for the image
+     * @param image The image that should be written to disk
+     * @param writeTime Receives the nanoseconds spent on encoding and writing
+     */
+    public default void saveBufferedImage(String filename, BufferedImage image, LongConsumer writeTime) {
+        long start = System.nanoTime();
+        saveBufferedImage(filename, image);
+        writeTime.accept(System.nanoTime() - start);
+    }
 }
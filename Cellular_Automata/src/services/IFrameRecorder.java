@@ -0,0 +1,21 @@
+package services;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface Definition for a sink that records the generations of a run as
+ * frames of an animation.
+ */
+
+public interface IFrameRecorder extends Closeable {
+
+    /**
+     * Appends the image as next frame of the animation.
+     *
+     * @param image The image of the generation, all frames must have the same size
+     * @throws IOException If the frame could not be written
+     */
+    public void recordFrame(BufferedImage image) throws IOException;
+}
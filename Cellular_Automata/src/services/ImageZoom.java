@@ -0,0 +1,59 @@
+package services;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Enlarges the images of the generators, which hold a pixel per cell, to
+ * quadrats of a number of pixels per cell, the nearest neighbour way. The
+ * display scales while painting instead, so only images that are written
+ * to files are enlarged.
+ */
+
+public final class ImageZoom {
+
+    private ImageZoom() {
+    }
+
+    /**
+     *
+     * @param image An image with a pixel per cell
+     * @param size Size of the quadrat of a cell in pixels
+     * @return The image with size x size pixels per cell, the image itself
+     * for a size of 1
+     */
+    public static BufferedImage zoom(BufferedImage image, int size) {
+        if (size <= 1) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage zoomed = new BufferedImage(width * size, height * size, BufferedImage.TYPE_INT_ARGB);
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            Graphics2D g2d = zoomed.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(image, 0, 0, width * size, height * size, null);
+            g2d.dispose();
+            return zoomed;
+        }
+        int[] source = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] target = ((DataBufferInt) zoomed.getRaster().getDataBuffer()).getData();
+        int line = width * size;
+        for (int y = 0; y < height; y++) {
+            int first = y * size * line;
+            for (int x = 0; x < width; x++) {
+                int color = source[y * width + x];
+                for (int i = 0; i < size; i++) {
+                    target[first + x * size + i] = color;
+                }
+            }
+            //The other lines of the quadrats repeat the first one
+            for (int d = 1; d < size; d++) {
+                System.arraycopy(target, first, target, first + d * line, line);
+            }
+        }
+        return zoomed;
+    }
+}
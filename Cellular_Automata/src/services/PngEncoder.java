@@ -0,0 +1,544 @@
+package services;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder that deflates horizontal strips of the image in parallel.
+ * Like pigz every strip is compressed as a raw deflate stream that is primed
+ * with the last 32 KiB of the rows above it and ends on a byte boundary, so the
+ * strips can simply be concatenated into one zlib stream. The checksums of the
+ * strips are combined into the Adler-32 of the whole stream.
+ *
+ * The pixel format is chosen from the content of the image:
+ *      - black and white images are written as 1 bit grayscale,
+ *      - images with up to 256 colors are written with a palette of 1, 2, 4 or 8 bits,
+ *      - all other images are written as 8 bit RGBA.
+ */
+
+public class PngEncoder {
+
+    /**
+     * Compression level used if none is given, the same as for zlib.
+     */
+    public static final int DEFAULT_COMPRESSION = 6;
+
+    static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int DICTIONARY_SIZE = 32768;
+    private static final int STRIP_SIZE = 1 << 18; // uncompressed bytes per strip
+
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_PALETTE = 3;
+    private static final int COLOR_RGBA = 6;
+
+    private final int compressionLevel;
+
+    /**
+     * Constructor for the default compression level
+     */
+    public PngEncoder() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param compressionLevel 0 (none, fastest) to 9 (best, slowest)
+     */
+    public PngEncoder(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Writes the image as PNG to the stream. The stream is not closed.
+     *
+     * @param image The image that should be encoded
+     * @param out The stream for the PNG data
+     * @throws IOException If the stream can not be written
+     */
+    public void write(BufferedImage image, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        //Find the colors of the image, one strip per task
+        int stripRows = Math.max(1, STRIP_SIZE / (4 * width + 1));
+        List<CompletableFuture<ColorTable>> scans = new ArrayList<>();
+        for (int y = 0; y < height; y += stripRows) {
+            final int y0 = y;
+            final int y1 = Math.min(height, y + stripRows);
+            scans.add(CompletableFuture.supplyAsync(() -> scanColors(image, y0, y1)));
+        }
+        ColorTable colors = new ColorTable();
+        for (CompletableFuture<ColorTable> scan : scans) {
+            ColorTable strip = join(scan);
+            if (strip == null || !colors.addAll(strip)) {
+                colors = null;
+                break;
+            }
+        }
+        Format format = Format.of(colors);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(SIGNATURE);
+        writeChunk(data, "IHDR", header(width, height, format));
+        if (format.colorType == COLOR_PALETTE) {
+            writeChunk(data, "PLTE", format.palette());
+            byte[] transparency = format.transparency();
+            if (transparency != null) {
+                writeChunk(data, "tRNS", transparency);
+            }
+        }
+        for (byte[] idat : compress(image, format, 0, 0, width, height)) {
+            writeChunk(data, "IDAT", idat);
+        }
+        writeChunk(data, "IEND", new byte[0]);
+        data.flush();
+    }
+
+    /**
+     * Content of the IHDR chunk.
+     *
+     * @param width Width of the image
+     * @param height Height of the image
+     * @param format Pixel format of the image
+     * @return The chunk data
+     * @throws IOException Never, the data is written to memory
+     */
+    static byte[] header(int width, int height, Format format) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(header);
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.writeByte(format.bitDepth);
+        ihdr.writeByte(format.colorType);
+        ihdr.writeByte(0); // deflate
+        ihdr.writeByte(0); // adaptive filtering
+        ihdr.writeByte(0); // no interlace
+        return header.toByteArray();
+    }
+
+    /**
+     * Filters and compresses a rectangle of the image into a zlib stream.
+     * The strips are deflated in parallel.
+     *
+     * @param image The image that should be encoded
+     * @param format Pixel format of the encoded data
+     * @param x Left edge of the rectangle
+     * @param y Top edge of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @return The zlib stream in consecutive parts, one per strip
+     * @throws IOException If a strip could not be compressed
+     */
+    List<byte[]> compress(BufferedImage image, Format format, int x, int y, int width, int height)
+            throws IOException {
+        int stripRows = Math.max(1, STRIP_SIZE / (format.rowBytes(width) + 1));
+        List<CompletableFuture<Strip>> strips = new ArrayList<>();
+        for (int y0 = 0; y0 < height; y0 += stripRows) {
+            final int top = y0;
+            final int bottom = Math.min(height, y0 + stripRows);
+            strips.add(CompletableFuture.supplyAsync(
+                    () -> deflate(image, format, x, y, width, top, bottom, bottom == height)));
+        }
+
+        //zlib header, the concatenated strips and the combined checksum
+        List<byte[]> parts = new ArrayList<>(strips.size());
+        long adler = 1;
+        for (int i = 0; i < strips.size(); i++) {
+            Strip strip = join(strips.get(i));
+            adler = (i == 0) ? strip.adler : combineAdler32(adler, strip.adler, strip.length);
+            ByteArrayOutputStream part = new ByteArrayOutputStream(strip.deflated.length + 6);
+            if (i == 0) {
+                part.write(0x78);
+                part.write(zlibFlags());
+            }
+            part.write(strip.deflated);
+            if (i == strips.size() - 1) {
+                part.write((int) (adler >>> 24));
+                part.write((int) (adler >>> 16));
+                part.write((int) (adler >>> 8));
+                part.write((int) adler);
+            }
+            parts.add(part.toByteArray());
+        }
+        return parts;
+    }
+
+    private ColorTable scanColors(BufferedImage image, int y0, int y1) {
+        int width = image.getWidth();
+        int[] row = new int[width];
+        ColorTable colors = new ColorTable();
+        int last = 0;
+        boolean first = true;
+        for (int y = y0; y < y1; y++) {
+            readRow(image, 0, y, row);
+            for (int x = 0; x < width; x++) {
+                if (first || row[x] != last) {
+                    if (colors.indexOf(row[x]) < 0 && !colors.add(row[x])) {
+                        return null;
+                    }
+                    last = row[x];
+                    first = false;
+                }
+            }
+        }
+        return colors;
+    }
+
+    private Strip deflate(BufferedImage image, Format format, int x, int y, int width, int y0, int y1,
+            boolean last) {
+        int rowBytes = format.rowBytes(width) + 1;
+        //Rows above the strip that are needed as dictionary
+        int dictionaryRows = Math.min(y0, (DICTIONARY_SIZE + rowBytes - 1) / rowBytes);
+        byte[] raw = new byte[(y1 - y0 + dictionaryRows) * rowBytes];
+        int[] row = new int[width];
+        for (int r = y0 - dictionaryRows; r < y1; r++) {
+            readRow(image, x, y + r, row);
+            format.encodeRow(row, raw, (r - y0 + dictionaryRows) * rowBytes);
+        }
+        int offset = dictionaryRows * rowBytes;
+        int length = raw.length - offset;
+
+        Adler32 checksum = new Adler32();
+        checksum.update(raw, offset, length);
+
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (dictionaryRows > 0) {
+                int size = Math.min(offset, DICTIONARY_SIZE);
+                deflater.setDictionary(raw, offset - size, size);
+            }
+            deflater.setInput(raw, offset, length);
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 4 + 64);
+            byte[] buffer = new byte[65536];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflated.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                //Sync flush ends the strip on a byte boundary without closing the stream
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    deflated.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return new Strip(deflated.toByteArray(), checksum.getValue(), length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads row.length ARGB pixels of a row starting at x.
+     *
+     * @param image The image
+     * @param x Column of the first pixel
+     * @param y Row
+     * @param row Receives the pixels
+     */
+    static void readRow(BufferedImage image, int x, int y, int[] row) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            //Fast path without color conversion
+            image.getRaster().getDataElements(x, y, row.length, 1, row);
+        } else {
+            image.getRGB(x, y, row.length, 1, row, 0, row.length);
+        }
+    }
+
+    private int zlibFlags() {
+        //FLEVEL as written by zlib, chosen so that the header is a multiple of 31
+        if (compressionLevel < 2) {
+            return 0x01;
+        } else if (compressionLevel < 6) {
+            return 0x5E;
+        } else if (compressionLevel == 6) {
+            return 0x9C;
+        }
+        return 0xDA;
+    }
+
+    /**
+     * Writes a chunk with its length and checksum.
+     *
+     * @param out The PNG stream
+     * @param type Name of the chunk
+     * @param content Data of the chunk
+     * @throws IOException If the stream can not be written
+     */
+    static void writeChunk(DataOutputStream out, String type, byte[] content) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(content);
+        out.writeInt(content.length);
+        out.write(name);
+        out.write(content);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Combines the Adler-32 of two consecutive blocks of data as done by
+     * adler32_combine of zlib.
+     *
+     * @param adler1 Checksum of the first block
+     * @param adler2 Checksum of the second block
+     * @param length2 Length of the second block
+     * @return Checksum of both blocks
+     */
+    static long combineAdler32(long adler1, long adler2, long length2) {
+        final long base = 65521;
+        long remainder = length2 % base;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (adler2 & 0xffff) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - remainder;
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum2 >= (base << 1)) {
+            sum2 -= (base << 1);
+        }
+        if (sum2 >= base) {
+            sum2 -= base;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw new IOException("PNG encoding failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Deflated strip with the checksum of its uncompressed data.
+     */
+    private static class Strip {
+
+        private final byte[] deflated;
+        private final long adler;
+        private final long length;
+
+        Strip(byte[] deflated, long adler, long length) {
+            this.deflated = deflated;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Up to 256 distinct ARGB colors in an open addressing hash table.
+     */
+    static class ColorTable {
+
+        private final int[] keys = new int[1024];
+        private final int[] indices = new int[1024];
+        private final int[] colors = new int[256];
+        private int size;
+
+        ColorTable() {
+            Arrays.fill(indices, -1);
+        }
+
+        int indexOf(int color) {
+            int slot = hash(color);
+            while (indices[slot] >= 0) {
+                if (keys[slot] == color) {
+                    return indices[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return -1;
+        }
+
+        boolean add(int color) {
+            if (indexOf(color) >= 0) {
+                return true;
+            }
+            if (size == colors.length) {
+                return false;
+            }
+            int slot = hash(color);
+            while (indices[slot] >= 0) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = color;
+            indices[slot] = size;
+            colors[size++] = color;
+            return true;
+        }
+
+        boolean addAll(ColorTable other) {
+            for (int i = 0; i < other.size; i++) {
+                if (!add(other.colors[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int color(int index) {
+            return colors[index];
+        }
+
+        private int hash(int color) {
+            return (color * 0x9E3779B1 >>> 22) & (keys.length - 1);
+        }
+    }
+
+    /**
+     * Pixel format of the PNG and the encoding of the rows.
+     */
+    static class Format {
+
+        private final int colorType;
+        private final int bitDepth;
+        private final ColorTable colors;
+
+        private Format(int colorType, int bitDepth, ColorTable colors) {
+            this.colorType = colorType;
+            this.bitDepth = bitDepth;
+            this.colors = colors;
+        }
+
+        /**
+         *
+         * @return 8 bit RGBA, which can hold any image
+         */
+        static Format rgba() {
+            return new Format(COLOR_RGBA, 8, null);
+        }
+
+        static Format of(ColorTable colors) {
+            if (colors == null) {
+                return rgba();
+            }
+            boolean blackAndWhite = true;
+            for (int i = 0; i < colors.size(); i++) {
+                int color = colors.color(i);
+                blackAndWhite &= color == 0xFF000000 || color == 0xFFFFFFFF;
+            }
+            if (blackAndWhite) {
+                return new Format(COLOR_GRAY, 1, colors);
+            }
+            int size = colors.size();
+            int bitDepth = (size <= 2) ? 1 : (size <= 4) ? 2 : (size <= 16) ? 4 : 8;
+            return new Format(COLOR_PALETTE, bitDepth, colors);
+        }
+
+        int rowBytes(int width) {
+            if (colorType == COLOR_RGBA) {
+                return 4 * width;
+            }
+            return (width * bitDepth + 7) / 8;
+        }
+
+        byte[] palette() {
+            byte[] palette = new byte[3 * colors.size()];
+            for (int i = 0; i < colors.size(); i++) {
+                int color = colors.color(i);
+                palette[3 * i] = (byte) (color >>> 16);
+                palette[3 * i + 1] = (byte) (color >>> 8);
+                palette[3 * i + 2] = (byte) color;
+            }
+            return palette;
+        }
+
+        byte[] transparency() {
+            //Only the entries up to the last translucent color have to be written
+            int last = -1;
+            for (int i = 0; i < colors.size(); i++) {
+                if ((colors.color(i) >>> 24) != 0xFF) {
+                    last = i;
+                }
+            }
+            if (last < 0) {
+                return null;
+            }
+            byte[] alpha = new byte[last + 1];
+            for (int i = 0; i <= last; i++) {
+                alpha[i] = (byte) (colors.color(i) >>> 24);
+            }
+            return alpha;
+        }
+
+        /**
+         * Writes the filter type and the pixels of one row.
+         *
+         * @param row ARGB pixels of the row
+         * @param out Target buffer
+         * @param offset Position of the filter type byte in out
+         */
+        void encodeRow(int[] row, byte[] out, int offset) {
+            if (colorType == COLOR_RGBA) {
+                //Sub filter, the difference to the pixel on the left
+                out[offset] = 1;
+                int p = offset + 1;
+                int left = 0;
+                for (int x = 0; x < row.length; x++) {
+                    int argb = row[x];
+                    out[p++] = (byte) ((argb >>> 16) - (left >>> 16));
+                    out[p++] = (byte) ((argb >>> 8) - (left >>> 8));
+                    out[p++] = (byte) (argb - left);
+                    out[p++] = (byte) ((argb >>> 24) - (left >>> 24));
+                    left = argb;
+                }
+                return;
+            }
+            //No filter, the pixels are packed from the most significant bit
+            out[offset] = 0;
+            int pixelsPerByte = 8 / bitDepth;
+            int p = offset + 1;
+            int current = 0;
+            int last = 0;
+            int lastIndex = -1;
+            for (int x = 0; x < row.length; x++) {
+                int index;
+                if (lastIndex >= 0 && row[x] == last) {
+                    index = lastIndex;
+                } else if (colorType == COLOR_GRAY) {
+                    index = (row[x] == 0xFFFFFFFF) ? 1 : 0;
+                } else {
+                    index = colors.indexOf(row[x]);
+                }
+                last = row[x];
+                lastIndex = index;
+                int shift = 8 - bitDepth * (x % pixelsPerByte + 1);
+                current |= index << shift;
+                if (shift == 0) {
+                    out[p++] = (byte) current;
+                    current = 0;
+                }
+            }
+            if (row.length % pixelsPerByte != 0) {
+                out[p] = (byte) current;
+            }
+        }
+    }
+}
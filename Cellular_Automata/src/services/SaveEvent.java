@@ -0,0 +1,32 @@
+package services;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of encoding and writing an image, see
+ * BufferedImageSaveService.write. Asynchronous saves are recorded on the
+ * thread that writes the file.
+ */
+@Name("cellularautomata.Save")
+@Label("Save")
+@Category({"Cellular Automata", "Service"})
+@Description("Encoding and writing an image as PNG")
+public final class SaveEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+}